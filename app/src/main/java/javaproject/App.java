@@ -0,0 +1,1774 @@
+package javaproject;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javafx.animation.KeyFrame;
+import javafx.animation.PauseTransition;
+import javafx.animation.Timeline;
+import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
+import javafx.geometry.Bounds;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Scene;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.Alert;
+import javafx.scene.control.Button;
+import javafx.scene.control.ButtonType;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.control.Separator;
+import javafx.scene.control.TextArea;
+import javafx.scene.control.TextInputDialog;
+import javafx.scene.control.ToolBar;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Pane;
+import javafx.scene.layout.VBox;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.stage.FileChooser;
+import javafx.stage.Stage;
+import javafx.util.Duration;
+import javaproject.models.AdjacencyIndex;
+import javaproject.models.ControlPoint;
+import javaproject.models.Edge;
+import javaproject.models.Graph;
+import javaproject.models.GraphListener;
+import javaproject.models.Node;
+import javaproject.utils.AStarPathfinder;
+import javaproject.utils.AutosaveJournal;
+import javaproject.utils.ContractionHierarchy;
+import javaproject.utils.GraphListModel;
+import javaproject.utils.ImageImporter;
+import javaproject.utils.LandmarkTable;
+import javaproject.utils.MapIO;
+import javaproject.utils.MathUtils;
+import javaproject.utils.PerfMetrics;
+import javaproject.utils.RedrawScheduler;
+import javaproject.utils.SearchWorkspace;
+import javaproject.utils.SpecialRouteTable;
+import javaproject.utils.TiledImage;
+import javaproject.utils.UndoJournal;
+
+public class App extends Application {
+
+    // Stacked layers: background image, graph (edges, labels, nodes) and an
+    // overlay for the edge preview, selection and control point handle.
+    // They are viewport-sized and follow the scroll position inside mapContent,
+    // a spacer as large as the zoomed map.
+    private Canvas backgroundCanvas;
+    private Canvas canvas;
+    private Canvas overlayCanvas;
+    private Canvas[] layers;
+    private Pane mapContent;
+    private ScrollPane scrollPane;
+    private GraphicsContext backgroundGc;
+    private GraphicsContext gc;
+    private GraphicsContext overlayGc;
+    private Graph graph = new Graph(); // replaced as a whole when a map is loaded
+    private List<Node> nodes = graph.getNodes(); // read-only views, mutate through graph
+    private List<Edge> edges = graph.getEdges();
+    
+    private Node selectedNode = null;
+    private Node draggedNode = null;
+    private ControlPoint controlPoint = null;
+    private boolean creatingEdge = false;
+    private boolean curvedEdgeMode = false;
+    private double dragOffsetX, dragOffsetY;
+    private double previewX, previewY; // cursor position for the edge preview
+    private final Node previewNode = new Node(0, 0, "", false); // reused while drawing the preview
+    private final ControlPoint previewControl = new ControlPoint(0, 0);
+
+    // Map size, zoom and the map coordinates of the viewport's top-left corner
+    private double mapWidth, mapHeight;
+    private double zoom = 1.0;
+    private double viewX, viewY;
+
+    // Level of detail: below these zoom levels distance labels, then ordinary
+    // node labels are hidden, and finally nodes sharing a screen cell collapse
+    private static final double LOD_DISTANCE_LABELS = 0.6;
+    private static final double LOD_NODE_LABELS = 0.35;
+    private static final double LOD_CLUSTER_NODES = 0.2;
+    private static final double CLUSTER_CELL = 6; // screen pixels
+    private static final double LABEL_MARGIN = 80; // map units drawn beyond the viewport edge
+    private static final Font METRICS_FONT = Font.font("Monospaced", 12);
+    private final List<Node> visibleNodes = new ArrayList<>();
+    private final List<Edge> visibleEdges = new ArrayList<>();
+    private boolean[] clusterCells = new boolean[0];
+
+    // New fields for image and scale
+    private TiledImage backgroundImage;
+
+    // Handlers mark layers dirty; painting happens at most once per pulse
+    private final RedrawScheduler redrawScheduler =
+            new RedrawScheduler(this::paintBackground, this::paintGraph, this::paintOverlay);
+    private double scaleRatio = 1.0; // pixels per unit
+    private String unitName = "m"; // default unit
+    private boolean showDistances = true;
+    private boolean isAddNode = true;
+
+    private double radius = 5;
+
+    // UI elements for lists
+    // Backed by the graph itself; rows are formatted by the cell factories when shown
+    private ListView<Node> nodeListView = new ListView<>();
+    private ListView<Edge> edgeListView = new ListView<>();
+    private final GraphListModel<Node> nodeItems = GraphListModel.nodes(graph);
+    private final GraphListModel<Edge> edgeItems = GraphListModel.edges(graph);
+
+    // Edits go through the journal so Ctrl+Z / Ctrl+Y can step through them
+    private UndoJournal journal = new UndoJournal(graph);
+
+    // Keeps the start/destination choices in step with the special nodes
+    private final GraphListener specialNodesListener = new GraphListener() {
+        @Override
+        public void nodeAdded(Node node) {
+            if (node.isSpecial) {
+                updateNodeCombos();
+            }
+        }
+
+        @Override
+        public void nodeRemoved(Node node, int index) {
+            if (node.isSpecial) {
+                updateNodeCombos();
+            }
+        }
+
+        @Override
+        public void graphReset() {
+            updateNodeCombos();
+        }
+    };
+
+    private ComboBox<String> startNodeCombo = new ComboBox<>();
+    private ComboBox<String> destinationNodeCombo = new ComboBox<>();
+    private ComboBox<String> algorithmCombo = new ComboBox<>(FXCollections.observableArrayList(
+            ALGORITHM_ASTAR, ALGORITHM_BIDIRECTIONAL, ALGORITHM_ALT, ALGORITHM_CH));
+    private Button solvePathBtn = new Button("Solve Path");
+    private TextArea solutionText = new TextArea();
+    private CheckBox showPathCheck = new CheckBox("Show Path");
+    private List<Edge> solutionPath = new ArrayList<>();
+    // Path queries run one at a time on the solver thread, which alone uses the
+    // workspaces; a query is cancelled as soon as its inputs change
+    private final ExecutorService solveExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "path-solver");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final SearchWorkspace searchWorkspace = new SearchWorkspace(); // reused by every query
+    private final SearchWorkspace backwardWorkspace = new SearchWorkspace(); // second side of two-sided searches
+    private SolveTask solveTask;
+    private final GraphListener solveCancelListener = new GraphListener() {
+        @Override
+        public void nodeAdded(Node node) {
+            cancelSolve("the map changed");
+        }
+
+        @Override
+        public void nodeRemoved(Node node, int index) {
+            cancelSolve("the map changed");
+        }
+
+        @Override
+        public void nodeChanged(Node node) {
+            cancelSolve("the map changed");
+        }
+
+        @Override
+        public void edgeAdded(Edge edge) {
+            cancelSolve("the map changed");
+        }
+
+        @Override
+        public void edgeRemoved(Edge edge, int index) {
+            cancelSolve("the map changed");
+        }
+
+        @Override
+        public void edgeChanged(Edge edge) {
+            cancelSolve("the map changed");
+        }
+
+        @Override
+        public void graphReset() {
+            cancelSolve("the map changed");
+        }
+    };
+
+    // Landmarks or contraction hierarchy for the current graph, built in the
+    // background while that algorithm is selected; solvePath uses plain A* until
+    // they are ready
+    private static final String ALGORITHM_ASTAR = "A*";
+    private static final String ALGORITHM_BIDIRECTIONAL = "Bidirectional A*";
+    private static final String ALGORITHM_ALT = "A* with landmarks (ALT)";
+    private static final String ALGORITHM_CH = "Contraction Hierarchies";
+    private LandmarkTable landmarks;
+    private AtomicBoolean landmarkJobCancel;
+    private ContractionHierarchy hierarchy;
+    private AtomicBoolean hierarchyJobCancel;
+
+    // Distances and next hops between special nodes. Edits only invalidate it; the
+    // first query on a changed graph rebuilds it in the background, and solvePath
+    // answers from it once it matches the current graph
+    private final ForkJoinPool routePool =
+            new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    // Landmarks and the hierarchy are rebuilt once edits pause this long
+    private final PauseTransition routeRefreshDelay = new PauseTransition(Duration.millis(300));
+    private SpecialRouteTable routeTable;
+    private AtomicBoolean routeJobCancel;
+
+    // The "/" key turns PerfMetrics on and shows them over the canvas,
+    // repainting the overlay a few times a second while it is visible
+    private final Timeline metricsRefresh =
+            new Timeline(new KeyFrame(Duration.millis(250), e -> redrawOverlay()));
+    private final GraphListener routeTableListener = new GraphListener() {
+        @Override
+        public void nodeAdded(Node node) {
+            scheduleRouteRefresh();
+        }
+
+        @Override
+        public void nodeRemoved(Node node, int index) {
+            scheduleRouteRefresh();
+        }
+
+        @Override
+        public void nodeChanged(Node node) {
+            scheduleRouteRefresh();
+        }
+
+        @Override
+        public void edgeAdded(Edge edge) {
+            scheduleRouteRefresh();
+        }
+
+        @Override
+        public void edgeRemoved(Edge edge, int index) {
+            scheduleRouteRefresh();
+        }
+
+        @Override
+        public void edgeChanged(Edge edge) {
+            scheduleRouteRefresh();
+        }
+
+        @Override
+        public void graphReset() {
+            scheduleRouteRefresh();
+        }
+    };
+
+    // Load/save run in the background with a progress bar in the status bar
+    private final Label statusBar = new Label("Ready");
+    private final ProgressBar ioProgress = new ProgressBar();
+    private final Button ioCancelBtn = new Button("Cancel");
+    private Task<?> ioTask;
+
+    // Every edit is journaled in the background, per map file; see AutosaveJournal
+    private static final File AUTOSAVE_DIR = new File(System.getProperty("user.home"), ".mapjavafx/autosave");
+    private AutosaveJournal autosave; // null while a recovery is pending
+    private File mapFile; // last loaded or saved, null for a new map
+
+    @Override
+    public void start(Stage primaryStage) {
+        BorderPane root = new BorderPane();
+        backgroundCanvas = new Canvas();
+        canvas = new Canvas();
+        overlayCanvas = new Canvas();
+        overlayCanvas.setMouseTransparent(true); // mouse events go to the graph layer
+        backgroundGc = backgroundCanvas.getGraphicsContext2D();
+        gc = canvas.getGraphicsContext2D();
+        overlayGc = overlayCanvas.getGraphicsContext2D();
+        layers = new Canvas[] { backgroundCanvas, canvas, overlayCanvas };
+        mapContent = new Pane(layers);
+        setMapSize(1000, 700);
+
+        Scene scene = new Scene(root);
+
+        // Only the visible part of the map is ever drawn
+        scrollPane = new ScrollPane(mapContent);
+        scrollPane.setPannable(false);
+        scrollPane.hvalueProperty().addListener((obs, oldVal, newVal) -> updateViewport());
+        scrollPane.vvalueProperty().addListener((obs, oldVal, newVal) -> updateViewport());
+        scrollPane.viewportBoundsProperty().addListener((obs, oldVal, newVal) -> updateViewport());
+
+        // Create toolbar
+        ToolBar toolbar = new ToolBar();
+        Button addNodeBtn = new Button("Add Node");
+        CheckBox addNodeCheck = new CheckBox("");
+        addNodeCheck.setSelected(true);
+
+        Button straightEdgeBtn = new Button("Straight Edge");
+        Button curvedEdgeBtn = new Button("Curved Edge");
+        Button clearBtn = new Button("Clear All");
+        Button saveBtn = new Button("Save");
+        Button loadBtn = new Button("Load");
+        Button importImageBtn = new Button("Import Image");
+        Button setScaleBtn = new Button("Set Scale");
+        Button zoomInBtn = new Button("Zoom In (+)");
+        Button zoomOutBtn = new Button("Zoom Out (-)");
+        Button renameNodeBtn = new Button("Rename Node");
+        Button deleteSelectedBtn = new Button("Delete Selected");
+
+        CheckBox showDistanceCheck = new CheckBox("Show Distances");
+        showDistanceCheck.setSelected(true);
+
+        toolbar.getItems().addAll(
+                addNodeCheck, addNodeBtn, straightEdgeBtn, curvedEdgeBtn,
+                new Separator(), clearBtn, saveBtn, loadBtn,
+                new Separator(), importImageBtn, setScaleBtn, showDistanceCheck,
+                new Separator(), zoomInBtn, zoomOutBtn, renameNodeBtn, deleteSelectedBtn
+        );
+
+        // Status bar
+        ioProgress.setVisible(false);
+        ioProgress.managedProperty().bind(ioProgress.visibleProperty());
+        ioCancelBtn.setVisible(false);
+        ioCancelBtn.managedProperty().bind(ioCancelBtn.visibleProperty());
+        ioCancelBtn.setOnAction(e -> {
+            if (ioTask != null) {
+                ioTask.cancel();
+            }
+        });
+        HBox statusBox = new HBox(10, statusBar, ioProgress, ioCancelBtn);
+        statusBox.setAlignment(Pos.CENTER_LEFT);
+        statusBox.setStyle("-fx-background-color: #eee; -fx-padding: 5px;");
+
+        // Right panel for lists
+        VBox leftPanel = new VBox();
+        leftPanel.setPrefWidth(200);
+        leftPanel.getChildren().addAll(
+                new Label("Nodes:"),
+                nodeListView,
+                new Label("Edges:"),
+                edgeListView
+        );
+
+        VBox rightPanel = new VBox(10);
+        rightPanel.setPrefWidth(250);
+        rightPanel.setPadding(new Insets(10));
+        rightPanel.setStyle("-fx-background-color: #f5f5f5;");
+
+        // Title
+        Label titleLabel = new Label("Path Solver");
+        titleLabel.setStyle("-fx-font-weight: bold; -fx-font-size: 14;");
+
+        // Start Node selection
+        Label startLabel = new Label("Start Node:");
+        startNodeCombo.setPrefWidth(Double.MAX_VALUE);
+
+        // Destination Node selection
+        Label destLabel = new Label("Destination Node:");
+        destinationNodeCombo.setPrefWidth(Double.MAX_VALUE);
+
+        // Routing algorithm selection
+        Label algorithmLabel = new Label("Algorithm:");
+        algorithmCombo.setPrefWidth(Double.MAX_VALUE);
+        algorithmCombo.getSelectionModel().select(ALGORITHM_ASTAR);
+
+        // Solve button
+        solvePathBtn.setPrefWidth(Double.MAX_VALUE);
+        solvePathBtn.setStyle("-fx-base: #4CAF50;");
+
+        // Solution display
+        solutionText.setEditable(false);
+        solutionText.setWrapText(true);
+        solutionText.setPrefHeight(200);
+
+        // Show path checkbox
+        showPathCheck.setSelected(true);
+
+        rightPanel.getChildren().addAll(
+                titleLabel,
+                new Separator(),
+                startLabel,
+                startNodeCombo,
+                destLabel,
+                destinationNodeCombo,
+                algorithmLabel,
+                algorithmCombo,
+                solvePathBtn,
+                new Separator(),
+                showPathCheck,
+                new Label("Solution:"),
+                solutionText
+        );
+
+        nodeListView.setItems(nodeItems);
+        nodeListView.setCellFactory(list -> new ListCell<Node>() {
+            @Override
+            protected void updateItem(Node node, boolean empty) {
+                super.updateItem(node, empty);
+                setText(empty || node == null ? null
+                        : String.format("%s (%.1f, %.1f, %b)", node.label, node.x, node.y, node.isSpecial));
+            }
+        });
+        edgeListView.setItems(edgeItems);
+        edgeListView.setCellFactory(list -> new ListCell<Edge>() {
+            @Override
+            protected void updateItem(Edge edge, boolean empty) {
+                super.updateItem(edge, empty);
+                if (empty || edge == null) {
+                    setText(null);
+                } else {
+                    String edgeType = edge.curved ? "Curved" : "Straight";
+                    double distance = edge.getLength(scaleRatio);
+                    setText(String.format("%s -> %s (%s, %.1f %s)",
+                            edge.node1.label, edge.node2.label, edgeType, distance, unitName));
+                }
+            }
+        });
+        graph.addListener(specialNodesListener);
+        updateNodeCombos();
+        graph.addListener(routeTableListener);
+        routeRefreshDelay.setOnFinished(e -> {
+            refreshLandmarks();
+            refreshHierarchy();
+        });
+        algorithmCombo.setOnAction(e -> {
+            cancelSolve("the algorithm changed");
+            refreshLandmarks();
+            refreshHierarchy();
+        });
+        graph.addListener(solveCancelListener);
+        startNodeCombo.valueProperty().addListener((obs, oldVal, newVal) -> cancelSolve("the start node changed"));
+        destinationNodeCombo.valueProperty().addListener(
+                (obs, oldVal, newVal) -> cancelSolve("the destination changed"));
+
+        root.setTop(toolbar);
+        root.setCenter(scrollPane);
+        root.setLeft(leftPanel);
+        root.setRight(rightPanel);
+        root.setBottom(statusBox);
+
+        // Event handlers
+        addNodeBtn.setOnAction(e -> {
+            statusBar.setText("Mode: Add Node - Click on canvas to add a node");
+            creatingEdge = false;
+            curvedEdgeMode = false;
+            selectedNode = null;
+            controlPoint = null;
+        });
+
+        straightEdgeBtn.setOnAction(e -> {
+            statusBar.setText("Mode: Straight Edge - Click two nodes to connect them");
+            creatingEdge = true;
+            curvedEdgeMode = false;
+            selectedNode = null;
+            controlPoint = null;
+        });
+
+        curvedEdgeBtn.setOnAction(e -> {
+            statusBar.setText("Mode: Curved Edge - Click two nodes to connect them with a curve");
+            creatingEdge = true;
+            curvedEdgeMode = true;
+            selectedNode = null;
+            controlPoint = null;
+        });
+
+        clearBtn.setOnAction(e -> {
+            graph.clear();
+            journal.clear();
+            selectedNode = null;
+            controlPoint = null;
+            redrawCanvas();
+            statusBar.setText("Cleared all nodes and edges");
+        });
+
+        zoomInBtn.setOnAction(e -> zoom(1.1));
+        zoomOutBtn.setOnAction(e -> zoom(1 / 1.1));
+
+        saveBtn.setOnAction(e -> saveMap(primaryStage));
+        loadBtn.setOnAction(e -> loadMap(primaryStage));
+
+        importImageBtn.setOnAction(e -> {
+            ImageImporter.importImage(
+                    primaryStage,
+                    image -> {
+                        if (this.backgroundImage != null) {
+                            this.backgroundImage.close();
+                        }
+                        this.backgroundImage = image;
+                        setMapSize(image.getWidth(), image.getHeight());
+                        updateViewport();
+                    },
+                    this::redrawBackground
+            );
+        });
+
+        setScaleBtn.setOnAction(e -> setScale(primaryStage));
+
+        addNodeCheck.setOnAction(e -> {
+            isAddNode = addNodeCheck.isSelected();
+        });
+
+        showDistanceCheck.setOnAction(e -> {
+            showDistances = showDistanceCheck.isSelected();
+            redrawCanvas();
+        });
+
+        renameNodeBtn.setOnAction(e -> renameSelectedNode(primaryStage));
+
+        deleteSelectedBtn.setOnAction(e -> {
+            deleteSelected();
+            redrawCanvas();
+        });
+
+        solvePathBtn.setOnAction(e -> solvePath());
+        showPathCheck.setOnAction(e -> redrawCanvas());
+
+        // Mouse event handlers
+        canvas.setOnMouseClicked(this::handlePrimaryClick);
+        canvas.setOnMousePressed(this::handleMousePressed);
+        canvas.setOnMouseDragged(this::handleMouseDragged);
+
+        // scene.setOnKeyPressed(this::handleKeyPress);
+        scene.setOnKeyPressed(event -> handleKeyPress(event, primaryStage));
+
+        canvas.setOnMouseReleased(e -> {
+            draggedNode = null;
+            journal.endDrag(); // the whole drag undoes as one step
+            redrawOverlay();
+        });
+
+        canvas.setOnMouseMoved(e -> {
+            if (creatingEdge && selectedNode != null) {
+                // Only the overlay changes while the preview follows the cursor
+                previewX = mapX(e);
+                previewY = mapY(e);
+                redrawOverlay();
+            }
+        });
+
+        // List view selection handlers
+        nodeListView.getSelectionModel().selectedItemProperty().addListener((obs, oldVal, newVal) -> {
+            if (newVal != null) {
+                selectedNode = newVal;
+                edgeListView.getSelectionModel().clearSelection();
+                controlPoint = null;
+                redrawOverlay();
+            }
+        });
+
+        edgeListView.getSelectionModel().selectedItemProperty().addListener((obs, oldVal, newVal) -> {
+            if (newVal != null) {
+                selectedNode = null;
+                controlPoint = newVal.controlPoint;
+                redrawOverlay(); // the overlay highlights the selected edge
+            }
+        });
+
+        metricsRefresh.setCycleCount(Timeline.INDEFINITE);
+        PerfMetrics.register();
+
+        redrawAll();
+        redrawScheduler.start();
+        // Scene scene = new Scene(root);
+        primaryStage.setTitle("MiniMap Builder");
+        primaryStage.setScene(scene);
+        primaryStage.show();
+        recoverUntitled();
+    }
+
+    @Override
+    public void stop() {
+        if (autosave != null) {
+            autosave.close();
+        }
+    }
+
+    private void solvePath() {
+        // Get the selected node labels from combo boxes
+        String startLabel = startNodeCombo.getSelectionModel().getSelectedItem();
+        String destLabel = destinationNodeCombo.getSelectionModel().getSelectedItem();
+
+        if (startLabel == null || destLabel == null || startLabel.equals(destLabel)) {
+            solutionText.setText("Please select valid start and destination nodes");
+            return;
+        }
+
+        // Find the actual Node objects by label
+        Node start = graph.findNode(startLabel);
+        Node dest = graph.findNode(destLabel);
+
+        if (start == null || dest == null) {
+            solutionText.setText("Selected nodes not found in graph");
+            return;
+        }
+
+        // Drop any query still running and the previous solution
+        cancelSolve(null);
+        clearSolution();
+        redrawCanvas();
+
+        // The special-node table answers at once when it matches the current graph
+        AdjacencyIndex index = graph.adjacency();
+        if (routeTable != null && routeTable.index == index) {
+            AStarPathfinder.PathResult result = routeTable.path(start, dest);
+            if (result != null) {
+                statusBar.setText("Solved from the precomputed special-node table");
+                showSolution(start, dest, result);
+                return;
+            }
+        }
+        refreshRouteTable(index);
+
+        // Anything else is a search on the snapshot, off the FX thread
+        String algorithm = algorithmCombo.getValue();
+        SolveTask task = new SolveTask(index, start, dest, algorithm,
+                hierarchy != null && hierarchy.index == index ? hierarchy : null,
+                landmarks != null && landmarks.index == index ? landmarks : null);
+        solveTask = task;
+        solutionText.setText(task.heading);
+        task.messageProperty().addListener((obs, oldVal, newVal) -> {
+            if (solveTask == task) {
+                solutionText.setText(newVal);
+            }
+        });
+        task.setOnFailed(e -> {
+            if (solveTask == task) {
+                solveTask = null;
+                task.getException().printStackTrace();
+                solutionText.setText("Failed: " + task.getException().getMessage());
+            }
+        });
+        solveExecutor.execute(task);
+    }
+
+    // Cancels the query in flight, if any; reason, when given, replaces its progress text
+    private void cancelSolve(String reason) {
+        if (solveTask == null) {
+            return;
+        }
+        solveTask.cancel();
+        solveTask = null;
+        if (reason != null) {
+            solutionText.setText("Search cancelled: " + reason);
+        }
+    }
+
+    // Runs on the solver thread; hands the result back with Platform.runLater,
+    // where it is shown only if no newer query or edit has superseded it
+    private class SolveTask extends Task<AStarPathfinder.PathResult> {
+        private final AdjacencyIndex index;
+        private final Node start, dest;
+        private final int startId, destId; // ids as of the snapshot
+        private final String algorithm;
+        private final String heading;
+        private final ContractionHierarchy hierarchy;
+        private final LandmarkTable landmarks;
+
+        SolveTask(AdjacencyIndex index, Node start, Node dest, String algorithm,
+                  ContractionHierarchy hierarchy, LandmarkTable landmarks) {
+            this.index = index;
+            this.start = start;
+            this.dest = dest;
+            this.startId = start.id;
+            this.destId = dest.id;
+            this.algorithm = algorithm;
+            this.heading = "Solving " + start.label + " to " + dest.label + " with " + algorithm + "...";
+            this.hierarchy = hierarchy;
+            this.landmarks = landmarks;
+        }
+
+        @Override
+        protected AStarPathfinder.PathResult call() {
+            searchWorkspace.setProgress(expanded -> updateMessage(heading + "\n" + expanded + " nodes expanded"));
+            AStarPathfinder.PathResult result;
+            String status;
+            long started;
+            try {
+                if (ALGORITHM_CH.equals(algorithm) && hierarchy != null) {
+                    started = System.nanoTime();
+                    result = hierarchy.findPath(startId, destId, searchWorkspace, backwardWorkspace);
+                    status = "Solved with contraction hierarchies: " + result.nodesExpanded + " nodes expanded";
+                } else if (ALGORITHM_ALT.equals(algorithm) && landmarks != null) {
+                    // With metrics on, also run plain A* so the status bar can show
+                    // what the landmarks saved; otherwise that would double every query
+                    int euclidean = PerfMetrics.isOn()
+                            ? AStarPathfinder.findPath(index, startId, destId, searchWorkspace, null).nodesExpanded
+                            : -1;
+                    started = System.nanoTime();
+                    result = AStarPathfinder.findPath(index, startId, destId, searchWorkspace, landmarks);
+                    status = String.format("Solved with A* and %d landmarks: %d nodes expanded",
+                            landmarks.landmarks.length, result.nodesExpanded)
+                            + (euclidean < 0 ? "" : String.format(", %.1fx fewer than Euclidean A* (%d)",
+                                    euclidean / (double) Math.max(1, result.nodesExpanded), euclidean));
+                } else if (ALGORITHM_BIDIRECTIONAL.equals(algorithm)) {
+                    started = System.nanoTime();
+                    result = AStarPathfinder.findPathBidirectional(index, startId, destId,
+                            searchWorkspace, backwardWorkspace, null);
+                    status = "Solved with bidirectional A*: " + result.nodesExpanded + " nodes expanded";
+                } else {
+                    started = System.nanoTime();
+                    result = AStarPathfinder.findPath(index, startId, destId, searchWorkspace, null);
+                    status = "Solved with A*: " + result.nodesExpanded + " nodes expanded"
+                            + (ALGORITHM_ASTAR.equals(algorithm) ? "" : " (" + algorithm + " not ready yet)");
+                }
+                PerfMetrics.recordQuery(algorithm, result, System.nanoTime() - started);
+            } finally {
+                searchWorkspace.setProgress(null);
+            }
+
+            Platform.runLater(() -> {
+                if (solveTask == this && !isCancelled()) {
+                    solveTask = null;
+                    statusBar.setText(status);
+                    showSolution(start, dest, result);
+                }
+            });
+            return result;
+        }
+    }
+
+    private void showSolution(Node start, Node dest, AStarPathfinder.PathResult result) {
+        // System.err.println("nodes: " + nodes.toString());
+        // System.err.println();
+        // System.err.println("edges: " + edges.toString());
+        // System.err.println();
+        // System.err.println("start: " + start.label);
+        // System.err.println();
+        // System.err.println("dest: " + dest.label);
+        // System.err.println();
+
+        if (result.path.isEmpty()) {
+            solutionText.setText("No path found between " + start.label + " and " + dest.label);
+            return;
+        }
+
+        // The search reports the edges it went through; flag them for the highlight
+        setSolution(result.edges);
+
+        // Build solution text
+        StringBuilder sb = new StringBuilder();
+        sb.append("Path from ").append(start.label).append(" to ").append(dest.label).append(":\n");
+
+        double totalDistance = 0;
+        for (int i = 0; i < result.edges.size(); i++) {
+            Node from = result.path.get(i);
+            Node to = result.path.get(i + 1);
+            double distance = result.edges.get(i).getLength(scaleRatio);
+            totalDistance += distance;
+
+            sb.append("- ").append(from.label).append(" → ").append(to.label)
+                    .append(" (").append(String.format("%.2f", distance)).append(" ").append(unitName).append(")\n");
+        }
+
+        sb.append("\nTotal distance: ").append(String.format("%.2f", totalDistance)).append(" ").append(unitName);
+        solutionText.setText(sb.toString());
+
+        redrawCanvas();
+    }
+
+    // Called on every edit. The route table build in flight, if any, is for a
+    // stale graph; the next query starts a fresh one
+    private void scheduleRouteRefresh() {
+        if (routeJobCancel != null) {
+            routeJobCancel.set(true);
+            routeJobCancel = null;
+        }
+        routeRefreshDelay.playFromStart();
+    }
+
+    // Builds the route table for index in the background unless it is current
+    // or already being built; edits since then cancel the build
+    private void refreshRouteTable(AdjacencyIndex index) {
+        if (routeJobCancel != null) {
+            return;
+        }
+        int[] specials = nodes.stream().filter(node -> node.isSpecial).mapToInt(node -> node.id).toArray();
+        if (routeTable != null && routeTable.index == index && routeTable.sameSpecials(specials)) {
+            return;
+        }
+        AtomicBoolean cancelled = new AtomicBoolean();
+        routeJobCancel = cancelled;
+        SpecialRouteTable previous = routeTable;
+
+        Thread thread = new Thread(() -> {
+            SpecialRouteTable table = SpecialRouteTable.compute(index, specials, previous, routePool, cancelled);
+            Platform.runLater(() -> {
+                if (table != null && !cancelled.get()) {
+                    routeTable = table;
+                }
+                if (routeJobCancel == cancelled) {
+                    routeJobCancel = null;
+                }
+            });
+        }, "route-table");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Computes landmark distances for the current graph while ALT is selected,
+    // and drops them otherwise
+    private void refreshLandmarks() {
+        if (!ALGORITHM_ALT.equals(algorithmCombo.getValue())) {
+            if (landmarkJobCancel != null) {
+                landmarkJobCancel.set(true);
+            }
+            landmarks = null;
+            return;
+        }
+        AdjacencyIndex index = graph.adjacency();
+        if (landmarks != null && landmarks.index == index) {
+            return;
+        }
+        if (landmarkJobCancel != null) {
+            landmarkJobCancel.set(true);
+        }
+        AtomicBoolean cancelled = new AtomicBoolean();
+        landmarkJobCancel = cancelled;
+
+        Thread thread = new Thread(() -> {
+            LandmarkTable table = LandmarkTable.compute(index, LandmarkTable.DEFAULT_LANDMARKS, routePool, cancelled);
+            Platform.runLater(() -> {
+                if (table != null && !cancelled.get()) {
+                    landmarks = table;
+                }
+            });
+        }, "landmarks");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Builds the hierarchy for the current graph while CH is selected, and drops
+    // it when A* is, as it can take as much memory as the graph itself
+    private void refreshHierarchy() {
+        if (!ALGORITHM_CH.equals(algorithmCombo.getValue())) {
+            if (hierarchyJobCancel != null) {
+                hierarchyJobCancel.set(true);
+            }
+            hierarchy = null;
+            return;
+        }
+        AdjacencyIndex index = graph.adjacency();
+        if (hierarchy != null && hierarchy.index == index) {
+            return;
+        }
+        if (hierarchyJobCancel != null) {
+            hierarchyJobCancel.set(true);
+        }
+        AtomicBoolean cancelled = new AtomicBoolean();
+        hierarchyJobCancel = cancelled;
+
+        Thread thread = new Thread(() -> {
+            ContractionHierarchy built = ContractionHierarchy.build(index, cancelled);
+            Platform.runLater(() -> {
+                if (built != null && !cancelled.get()) {
+                    hierarchy = built;
+                    statusBar.setText(String.format("Contraction hierarchy ready: %d shortcuts, %.0f ms, %.1f MB",
+                            built.shortcuts, built.buildNanos / 1e6, built.memoryBytes() / 1e6));
+                }
+            });
+        }, "contraction-hierarchy");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void setSolution(List<Edge> path) {
+        clearSolution();
+        solutionPath.addAll(path);
+        for (Edge edge : solutionPath) {
+            edge.onSolutionPath = true;
+        }
+    }
+
+    private void clearSolution() {
+        for (Edge edge : solutionPath) {
+            edge.onSolutionPath = false;
+        }
+        solutionPath.clear();
+    }
+
+    private void updateNodeCombos() {
+        long started = PerfMetrics.start();
+        ObservableList<String> items = FXCollections.observableArrayList();
+        for (Node node : nodes) {
+            if (node.isSpecial == true) {
+                items.add(node.label);
+            }
+        }
+
+        String currentStart = startNodeCombo.getSelectionModel().getSelectedItem();
+        String currentDest = destinationNodeCombo.getSelectionModel().getSelectedItem();
+
+        startNodeCombo.setItems(items);
+        destinationNodeCombo.setItems(items);
+
+        if (currentStart != null) {
+            startNodeCombo.getSelectionModel().select(currentStart);
+        }
+        if (currentDest != null) {
+            destinationNodeCombo.getSelectionModel().select(currentDest);
+        }
+        PerfMetrics.LISTS.stop(started);
+    }
+
+    // Toggles the metrics overlay; turning it off also prints what was collected
+    private void logChecker() {
+        if (!PerfMetrics.isOn()) {
+            PerfMetrics.resetAll();
+            redrawScheduler.resetStats();
+            PerfMetrics.setOn(true);
+            metricsRefresh.play();
+        } else {
+            PerfMetrics.setOn(false);
+            metricsRefresh.stop();
+            System.out.println();
+            System.out.println("Log Checker -----------");
+            System.out.println(redrawScheduler.stats());
+            System.out.println(PerfMetrics.summary());
+            System.out.println();
+        }
+        redrawOverlay();
+    }
+
+    // Drawn in screen coordinates over the top-left corner of the viewport
+    private void drawMetricsOverlay() {
+        String[] lines = (PerfMetrics.summary() + System.lineSeparator() + redrawScheduler.stats()
+                + System.lineSeparator() + "Press / to hide").split("\\R");
+        int longest = 0;
+        for (String line : lines) {
+            longest = Math.max(longest, line.length());
+        }
+        overlayGc.save();
+        overlayGc.setTransform(1, 0, 0, 1, 0, 0);
+        overlayGc.setFont(METRICS_FONT);
+        overlayGc.setFill(Color.rgb(0, 0, 0, 0.7));
+        overlayGc.fillRect(8, 8, longest * 7.3 + 12, lines.length * 15 + 10);
+        overlayGc.setFill(Color.LIME);
+        for (int i = 0; i < lines.length; i++) {
+            overlayGc.fillText(lines[i], 14, 25 + i * 15);
+        }
+        overlayGc.restore();
+    }
+
+    private void renameSelectedNode(Stage primaryStage) {
+        if (selectedNode == null) {
+            // Check if a node is selected in the list view
+            int selectedIndex = nodeListView.getSelectionModel().getSelectedIndex();
+            if (selectedIndex >= 0 && selectedIndex < nodes.size()) {
+                selectedNode = nodes.get(selectedIndex);
+            } else {
+                return; // No node selected
+            }
+        }
+
+        TextInputDialog dialog = new TextInputDialog(selectedNode.label);
+        dialog.setTitle("Rename Node");
+        dialog.setHeaderText("Enter new name for the node");
+
+        // Create the checkbox
+        CheckBox isSpecialCheck = new CheckBox("Is it Special Node?");
+        isSpecialCheck.setSelected(selectedNode.isSpecial);
+
+        // Create a container for the dialog content
+        GridPane grid = new GridPane();
+        grid.setHgap(10);
+        grid.setVgap(10);
+        grid.setPadding(new Insets(20, 150, 10, 10));
+
+        // Add components to the grid
+        grid.add(new Label("Node name:"), 0, 0);
+        grid.add(dialog.getEditor(), 1, 0);
+        grid.add(isSpecialCheck, 0, 1, 2, 1);
+
+        // Set the grid as the dialog's content
+        dialog.getDialogPane().setContent(grid);
+
+        // Focus on the text field by default
+        Platform.runLater(() -> dialog.getEditor().requestFocus());
+
+        dialog.showAndWait().ifPresent(newName -> {
+            // Update the name and special status; the list rows follow the graph
+            journal.renameNode(selectedNode, newName, isSpecialCheck.isSelected());
+            updateNodeCombos();
+            redrawCanvas();
+        });
+    }
+
+    private void deleteSelected() {
+        // Delete selected node and connected edges
+        if (selectedNode != null) {
+            // Removing the node also removes its connected edges
+            journal.removeNode(selectedNode);
+            selectedNode = null;
+            controlPoint = null;
+        }
+
+        // Delete selected edge
+        int selectedEdgeIndex = edgeListView.getSelectionModel().getSelectedIndex();
+        if (selectedEdgeIndex >= 0 && selectedEdgeIndex < edges.size()) {
+            journal.removeEdge(edges.get(selectedEdgeIndex));
+            edgeListView.getSelectionModel().clearSelection();
+            controlPoint = null;
+        }
+    }
+
+    private void handlePrimaryClick(MouseEvent e) {
+        if (!creatingEdge && isAddNode) {
+            Node newNode = new Node(mapX(e), mapY(e), String.valueOf(nodes.size() + 1), false);
+            journal.addNode(newNode);
+            redrawCanvas();
+        } else {
+            Node clickedNode = getNodeAt(mapX(e), mapY(e));
+            if (clickedNode != null) {
+                if (selectedNode == null) {
+                    selectedNode = clickedNode;
+                    previewX = mapX(e);
+                    previewY = mapY(e);
+                    if (curvedEdgeMode) {
+                        // Create a control point at the midpoint between selected node and mouse position
+                        double midX = (selectedNode.x + mapX(e)) / 2;
+                        double midY = (selectedNode.y + mapY(e)) / 2;
+                        controlPoint = new ControlPoint(midX, midY);
+                    }
+                } else if (selectedNode != clickedNode) {
+                    if (curvedEdgeMode) {
+                        // If no control point was set (user didn't drag it), create one at midpoint
+                        if (controlPoint == null) {
+                            double midX = (selectedNode.x + clickedNode.x) / 2;
+                            double midY = (selectedNode.y + clickedNode.y) / 2;
+                            controlPoint = new ControlPoint(midX, midY);
+                        }
+                        Edge edge = new Edge(selectedNode, clickedNode, true, controlPoint);
+                        journal.addEdge(edge);
+                    } else {
+                        Edge edge = new Edge(selectedNode, clickedNode, false, null);
+                        journal.addEdge(edge);
+                    }
+                    selectedNode = null;
+                    controlPoint = null;
+                    redrawCanvas();
+                }
+            } else if (curvedEdgeMode && selectedNode != null && controlPoint != null) {
+                // Check if clicking on control point to move it
+                if (Math.abs(mapX(e) - controlPoint.x) < 10 && Math.abs(mapY(e) - controlPoint.y) < 10) {
+                    // Control point is already being handled in mousePressed
+                }
+            } else if (!creatingEdge) {
+                // Select the edge under the cursor, same as picking it in the edge list
+                Edge clickedEdge = getEdgeAt(mapX(e), mapY(e));
+                if (clickedEdge != null) {
+                    edgeListView.getSelectionModel().select(clickedEdge.id);
+                }
+            }
+        }
+    }
+
+    private void handleMousePressed(MouseEvent e) {
+        if (e.getButton() == MouseButton.PRIMARY) {
+            if (!creatingEdge) {
+                Node clickedNode = getNodeAt(mapX(e), mapY(e));
+                if (clickedNode != null) {
+                    draggedNode = clickedNode;
+                    dragOffsetX = mapX(e) - clickedNode.x;
+                    dragOffsetY = mapY(e) - clickedNode.y;
+                }
+            }
+
+            // Check if clicking on control point to move it
+            if (curvedEdgeMode && controlPoint != null) {
+                if (Math.abs(mapX(e) - controlPoint.x) < 10 && Math.abs(mapY(e) - controlPoint.y) < 10) {
+                    dragOffsetX = mapX(e) - controlPoint.x;
+                    dragOffsetY = mapY(e) - controlPoint.y;
+                }
+            }
+        }
+    }
+
+    private void clearFN(){
+        selectedNode = null;
+        controlPoint = null;
+        creatingEdge = false;
+    }
+
+    private void handleMouseDragged(MouseEvent e) {
+        if (draggedNode != null) {
+            journal.moveNode(draggedNode, mapX(e) - dragOffsetX, mapY(e) - dragOffsetY);
+            redrawCanvas();
+            clearFN();
+        } else if (controlPoint != null && curvedEdgeMode) {
+            // Moving control point, re-indexing its edge if it already has one
+            int edgeIndex = edgeListView.getSelectionModel().getSelectedIndex();
+            if (edgeIndex >= 0 && edgeIndex < edges.size() && edges.get(edgeIndex).controlPoint == controlPoint) {
+                journal.moveControlPoint(edges.get(edgeIndex), mapX(e) - dragOffsetX, mapY(e) - dragOffsetY);
+            } else {
+                controlPoint.moveTo(mapX(e) - dragOffsetX, mapY(e) - dragOffsetY);
+            }
+            redrawCanvas();
+        }
+        
+        
+    }
+
+    private void setMapSize(double width, double height) {
+        mapWidth = width;
+        mapHeight = height;
+        mapContent.setPrefSize(mapWidth * zoom, mapHeight * zoom);
+        mapContent.setMinSize(mapWidth * zoom, mapHeight * zoom);
+    }
+
+    // Resizes the layers to the viewport, moves them to the scroll position and redraws
+    private void updateViewport() {
+        Bounds viewport = scrollPane.getViewportBounds();
+        double width = Math.max(1, viewport.getWidth());
+        double height = Math.max(1, viewport.getHeight());
+        double offsetX = scrollPane.getHvalue() * Math.max(0, mapWidth * zoom - width);
+        double offsetY = scrollPane.getVvalue() * Math.max(0, mapHeight * zoom - height);
+        for (Canvas layer : layers) {
+            layer.setWidth(width);
+            layer.setHeight(height);
+            layer.relocate(offsetX, offsetY);
+        }
+        viewX = offsetX / zoom;
+        viewY = offsetY / zoom;
+        redrawAll();
+        redrawScheduler.flush(); // the layers have already moved, so their content must not lag
+    }
+
+    private double mapX(MouseEvent e) {
+        return viewX + e.getX() / zoom;
+    }
+
+    private double mapY(MouseEvent e) {
+        return viewY + e.getY() / zoom;
+    }
+
+    // Clears a layer and sets it up to draw in map coordinates
+    private void beginLayer(Canvas layer, GraphicsContext layerGc) {
+        layerGc.setTransform(1, 0, 0, 1, 0, 0);
+        layerGc.clearRect(0, 0, layer.getWidth(), layer.getHeight());
+        layerGc.setTransform(zoom, 0, 0, zoom, -viewX * zoom, -viewY * zoom);
+    }
+
+    private void redrawAll() {
+        redrawScheduler.request(RedrawScheduler.ALL);
+    }
+
+    // Graph and overlay; the background only changes when an image is imported
+    private void redrawCanvas() {
+        redrawScheduler.request(RedrawScheduler.GRAPH | RedrawScheduler.OVERLAY);
+    }
+
+    private void redrawBackground() {
+        redrawScheduler.request(RedrawScheduler.BACKGROUND);
+    }
+
+    private void redrawOverlay() {
+        redrawScheduler.request(RedrawScheduler.OVERLAY);
+    }
+
+    private void paintBackground() {
+        beginLayer(backgroundCanvas, backgroundGc);
+
+        if (backgroundImage != null) {
+            // Only the tiles under the viewport, at the resolution the zoom needs
+            backgroundImage.draw(backgroundGc, viewX, viewY,
+                    backgroundCanvas.getWidth() / zoom, backgroundCanvas.getHeight() / zoom, zoom);
+        }
+    }
+
+    private void paintGraph() {
+        beginLayer(canvas, gc);
+
+        // Cull to the viewport, with a margin so labels of items just outside still show
+        double minX = viewX - LABEL_MARGIN;
+        double minY = viewY - LABEL_MARGIN;
+        double maxX = viewX + canvas.getWidth() / zoom + LABEL_MARGIN;
+        double maxY = viewY + canvas.getHeight() / zoom + LABEL_MARGIN;
+        visibleEdges.clear();
+        visibleNodes.clear();
+        graph.edgesIn(minX, minY, maxX, maxY, visibleEdges);
+        graph.nodesIn(minX, minY, maxX, maxY, visibleNodes);
+
+        boolean drawDistanceLabels = showDistances && zoom >= LOD_DISTANCE_LABELS;
+        boolean drawNodeLabels = zoom >= LOD_NODE_LABELS;
+        boolean drawControlLines = zoom >= LOD_NODE_LABELS;
+
+        // Draw edges
+        for (Edge edge : visibleEdges) {
+            // Highlight solution path edges if showing
+            boolean isSolutionEdge = showPathCheck.isSelected() && edge.onSolutionPath;
+            Color edgeColor = isSolutionEdge ? Color.MAGENTA : Color.BLACK;
+            Color labelColor = isSolutionEdge ? Color.DARKGREEN : Color.BLUE;
+
+            
+            if(isSolutionEdge){
+                gc.setLineWidth(3);
+            } else {
+                gc.setLineWidth(1);
+            }
+
+            if (edge.curved) {
+                if (drawControlLines) {
+                    drawCurvedEdge(gc, edge.node1, edge.node2, edge.controlPoint, edgeColor);
+                } else {
+                    strokeCurve(gc, edge.node1, edge.node2, edge.controlPoint, edgeColor);
+                }
+
+                if (drawDistanceLabels) {
+                    drawDistanceLabel(gc, edge.node1, edge.node2, labelColor, edge.getLength(scaleRatio));
+                }
+                
+            } else {
+                gc.setStroke(edgeColor);
+                gc.strokeLine(edge.node1.x, edge.node1.y, edge.node2.x, edge.node2.y);
+                if (drawDistanceLabels) {
+                    drawDistanceLabel(gc, edge.node1, edge.node2, labelColor, edge.getLength(scaleRatio));
+                }
+            }
+        }
+        gc.setLineWidth(1);
+
+        // Draw nodes; when zoomed far out only the first node per screen cell is drawn
+        boolean cluster = zoom < LOD_CLUSTER_NODES;
+        int columns = (int) (canvas.getWidth() / CLUSTER_CELL) + 1;
+        int rows = (int) (canvas.getHeight() / CLUSTER_CELL) + 1;
+        if (cluster) {
+            if (clusterCells.length < columns * rows) {
+                clusterCells = new boolean[columns * rows];
+            } else {
+                Arrays.fill(clusterCells, 0, columns * rows, false);
+            }
+        }
+        for (Node node : visibleNodes) {
+            if (cluster && !node.isSpecial) {
+                int column = (int) ((node.x - viewX) * zoom / CLUSTER_CELL);
+                int row = (int) ((node.y - viewY) * zoom / CLUSTER_CELL);
+                if (column >= 0 && column < columns && row >= 0 && row < rows) {
+                    if (clusterCells[row * columns + column]) {
+                        continue;
+                    }
+                    clusterCells[row * columns + column] = true;
+                }
+            }
+
+            gc.setFill(Color.LIGHTBLUE);
+            gc.fillOval(node.x - radius, node.y - radius, radius * 2, radius * 2);
+            gc.setStroke(Color.DARKBLUE);
+            gc.strokeOval(node.x - radius, node.y - radius, radius * 2, radius * 2);
+
+            // Draw node label; special nodes keep theirs at every zoom level
+            if (drawNodeLabels || node.isSpecial) {
+                gc.setFill(Color.BLACK);
+                gc.fillText(node.label, node.x - 10, node.y + radius + 5);
+            }
+        }
+    }
+
+    // Cheap to repaint: only the preview, selection and handles live here
+    private void paintOverlay() {
+        beginLayer(overlayCanvas, overlayGc);
+
+        // Highlight the edge selected in the list or on the canvas
+        int edgeIndex = edgeListView.getSelectionModel().getSelectedIndex();
+        if (edgeIndex >= 0 && edgeIndex < edges.size()) {
+            Edge edge = edges.get(edgeIndex);
+            overlayGc.setLineWidth(3);
+            if (edge.curved) {
+                drawCurvedEdge(overlayGc, edge.node1, edge.node2, edge.controlPoint, Color.RED);
+            } else {
+                overlayGc.setStroke(Color.RED);
+                overlayGc.strokeLine(edge.node1.x, edge.node1.y, edge.node2.x, edge.node2.y);
+            }
+            overlayGc.setLineWidth(1);
+        }
+
+        if (creatingEdge && selectedNode != null) {
+            drawEdgePreview();
+        }
+
+        // Draw control point if in curved edge mode with a node selected
+        if (curvedEdgeMode && selectedNode != null && controlPoint != null) {
+            overlayGc.setFill(Color.ORANGE);
+            overlayGc.fillOval(controlPoint.x - 5, controlPoint.y - 5, 10, 10);
+            overlayGc.setStroke(Color.DARKORANGE);
+            overlayGc.strokeOval(controlPoint.x - 5, controlPoint.y - 5, 10, 10);
+        }
+
+        // Highlight selected node
+        if (selectedNode != null) {
+            overlayGc.setStroke(Color.RED);
+            overlayGc.setLineWidth(2);
+            overlayGc.strokeOval(selectedNode.x - radius - 2,
+                    selectedNode.y - radius - 2,
+                    radius * 2 + 4,
+                    radius * 2 + 4);
+            overlayGc.setLineWidth(1);
+        }
+
+        if (PerfMetrics.isOn()) {
+            drawMetricsOverlay();
+        }
+    }
+
+    private void drawEdgePreview() {
+        overlayGc.setStroke(Color.GRAY);
+        overlayGc.setLineDashes(5);
+
+        Node hoveredNode = getNodeAt(previewX, previewY);
+        if (hoveredNode != null && hoveredNode != selectedNode) {
+            if (curvedEdgeMode) {
+                if (controlPoint == null) {
+                    // Use a temporary control point at the midpoint
+                    previewControl.x = (selectedNode.x + hoveredNode.x) / 2;
+                    previewControl.y = (selectedNode.y + hoveredNode.y) / 2;
+                    drawCurvedEdge(overlayGc, selectedNode, hoveredNode, previewControl, Color.GRAY);
+                } else {
+                    drawCurvedEdge(overlayGc, selectedNode, hoveredNode, controlPoint, Color.GRAY);
+                }
+            } else {
+                overlayGc.strokeLine(selectedNode.x, selectedNode.y, hoveredNode.x, hoveredNode.y);
+            }
+            // drawDistanceLabel(selectedNode, hoveredNode, Color.GRAY);
+            drawDistanceLabel(overlayGc, selectedNode, hoveredNode, Color.GRAY,
+                    MathUtils.calculateDistance(selectedNode, hoveredNode, scaleRatio));
+        } else {
+            if (curvedEdgeMode) {
+                // The cursor end is a scratch node, never part of the graph
+                previewNode.x = previewX;
+                previewNode.y = previewY;
+                if (controlPoint == null) {
+                    // Use a temporary control point at the midpoint
+                    previewControl.x = (selectedNode.x + previewX) / 2;
+                    previewControl.y = (selectedNode.y + previewY) / 2;
+                    drawCurvedEdge(overlayGc, selectedNode, previewNode, previewControl, Color.GRAY);
+                } else {
+                    drawCurvedEdge(overlayGc, selectedNode, previewNode, controlPoint, Color.GRAY);
+                }
+            } else {
+                overlayGc.strokeLine(selectedNode.x, selectedNode.y, previewX, previewY);
+            }
+        }
+        overlayGc.setLineDashes(0);
+    }
+
+    private void drawCurvedEdge(GraphicsContext gc, Node node1, Node node2, ControlPoint control, Color color) {
+        strokeCurve(gc, node1, node2, control, color);
+
+        // Draw control lines (optional)
+        gc.setStroke(Color.LIGHTGRAY);
+        gc.setLineDashes(2);
+        gc.strokeLine(node1.x, node1.y, control.x, control.y);
+        gc.strokeLine(node2.x, node2.y, control.x, control.y);
+        gc.setLineDashes(0);
+    }
+
+    private void strokeCurve(GraphicsContext gc, Node node1, Node node2, ControlPoint control, Color color) {
+        gc.setStroke(color);
+        gc.beginPath();
+        gc.moveTo(node1.x, node1.y);
+        gc.quadraticCurveTo(control.x, control.y, node2.x, node2.y);
+        gc.stroke();
+    }
+
+    private void drawDistanceLabel(GraphicsContext gc, Node node1, Node node2, Color color, double distance) {
+        String distanceText = String.format("%.2f %s", distance, unitName);
+        double midX = (node1.x + node2.x) / 2;
+        double midY = (node1.y + node2.y) / 2;
+
+        gc.setFill(Color.WHITE);
+        gc.fillRect(midX - 30, midY - 10, 60, 20);
+        gc.setStroke(color);
+        gc.strokeRect(midX - 30, midY - 10, 60, 20);
+        gc.setFill(color);
+        gc.fillText(distanceText, midX - 25, midY + 5);
+    }
+
+    private Node getNodeAt(double x, double y) {
+        long started = PerfMetrics.start();
+        Node node = graph.nodeAt(x, y, radius);
+        PerfMetrics.HIT_TEST.stop(started);
+        return node;
+    }
+
+    private Edge getEdgeAt(double x, double y) {
+        long started = PerfMetrics.start();
+        Edge edge = graph.edgeAt(x, y, 4);
+        PerfMetrics.HIT_TEST.stop(started);
+        return edge;
+    }
+
+    private void saveMap(Stage primaryStage) {
+        if (ioTask != null) {
+            return;
+        }
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Save Map");
+        FileChooser.ExtensionFilter binaryFilter =
+                new FileChooser.ExtensionFilter("Binary Maps", "*" + MapIO.BINARY_EXTENSION);
+        fileChooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("JSON Files", "*.json"), binaryFilter);
+        File chosen = fileChooser.showSaveDialog(primaryStage);
+
+        if (chosen != null) {
+            // The format follows the extension
+            File file = fileChooser.getSelectedExtensionFilter() == binaryFilter && !MapIO.isBinary(chosen)
+                    ? new File(chosen.getPath() + MapIO.BINARY_EXTENSION)
+                    : chosen;
+            // Copy the values here; the file is written while editing continues
+            MapIO.Snapshot snapshot = new MapIO.Snapshot(graph);
+            MapTask<Void> task = new MapTask<Void>() {
+                @Override
+                protected Void call() throws Exception {
+                    MapIO.save(snapshot, file, this);
+                    return null;
+                }
+            };
+            // Any edit during the save, moves and renames included, leaves the
+            // file stale, so the new autosave then starts from a snapshot instead
+            int savedModCount = graph.getModCount();
+            task.setOnSucceeded(e -> {
+                finishMapTask();
+                // The file now holds the map, so its autosave starts over from it
+                if (autosave != null) {
+                    autosave.close();
+                }
+                AutosaveJournal.delete(autosaveBase(mapFile));
+                mapFile = file;
+                autosave = new AutosaveJournal(graph, autosaveBase(file),
+                        graph.getModCount() == savedModCount ? file : null);
+                statusBar.setText("Saved " + file.getName());
+            });
+            runMapTask(task, "Saving " + file.getName() + "...");
+        }
+    }
+
+    private void loadMap(Stage primaryStage) {
+        if (ioTask != null) {
+            return;
+        }
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Load Map");
+        fileChooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("JSON Files", "*.json"),
+                new FileChooser.ExtensionFilter("Binary Maps", "*" + MapIO.BINARY_EXTENSION));
+        File file = fileChooser.showOpenDialog(primaryStage);
+
+        if (file != null) {
+            File base = autosaveBase(file);
+            boolean recover = AutosaveJournal.hasChanges(base) && confirmRecovery(file.getName());
+            // The map is built into a fresh graph and only swapped in once complete
+            MapTask<Graph> task = new MapTask<Graph>() {
+                @Override
+                protected Graph call() throws Exception {
+                    Graph recovered = recover ? AutosaveJournal.recover(base, this) : null;
+                    return recovered != null ? recovered : MapIO.load(file, this);
+                }
+            };
+            task.setOnSucceeded(e -> {
+                finishMapTask();
+                setGraph(task.getValue(), file, recover);
+                statusBar.setText((recover ? "Recovered unsaved changes to " : "Loaded ") + file.getName());
+            });
+            runMapTask(task, "Loading " + file.getName() + "...");
+        }
+    }
+
+    private void setGraph(Graph loaded, File file, boolean unsaved) {
+        if (autosave != null) {
+            autosave.close();
+        }
+        graph.removeListener(specialNodesListener);
+        graph.removeListener(routeTableListener);
+        graph.removeListener(solveCancelListener);
+        cancelSolve("another map was loaded");
+        graph = loaded;
+        journal = new UndoJournal(graph);
+        mapFile = file;
+        autosave = new AutosaveJournal(graph, autosaveBase(file), unsaved ? null : file);
+        graph.addListener(specialNodesListener);
+        graph.addListener(routeTableListener);
+        graph.addListener(solveCancelListener);
+        routeTable = null;
+        landmarks = null;
+        hierarchy = null;
+        scheduleRouteRefresh();
+        nodeItems.setGraph(graph);
+        edgeItems.setGraph(graph);
+        nodes = graph.getNodes();
+        edges = graph.getEdges();
+        selectedNode = null;
+        draggedNode = null;
+        controlPoint = null;
+        clearSolution();
+        updateNodeCombos();
+        redrawCanvas();
+    }
+
+    // A new map's autosave is offered back at startup. Until that is decided
+    // nothing is journaled; if recovery fails its files are kept for next time.
+    private void recoverUntitled() {
+        File base = autosaveBase(null);
+        if (!AutosaveJournal.hasChanges(base) || !confirmRecovery("the last new map")) {
+            autosave = new AutosaveJournal(graph, base);
+            return;
+        }
+        MapTask<Graph> task = new MapTask<Graph>() {
+            @Override
+            protected Graph call() throws Exception {
+                Graph recovered = AutosaveJournal.recover(base, this);
+                return recovered != null ? recovered : new Graph();
+            }
+        };
+        task.setOnSucceeded(e -> {
+            finishMapTask();
+            setGraph(task.getValue(), null, true);
+            statusBar.setText("Recovered unsaved changes");
+        });
+        runMapTask(task, "Recovering unsaved changes...");
+    }
+
+    private boolean confirmRecovery(String name) {
+        Alert alert = new Alert(Alert.AlertType.CONFIRMATION,
+                "There are unsaved changes to " + name + " from an earlier session. Recover them?",
+                ButtonType.YES, ButtonType.NO);
+        alert.setTitle("Recover Unsaved Changes");
+        alert.setHeaderText(null);
+        return alert.showAndWait().orElse(ButtonType.NO) == ButtonType.YES;
+    }
+
+    // One autosave per map file; the path hash tells apart files with the same name
+    private static File autosaveBase(File file) {
+        if (file == null) {
+            return new File(AUTOSAVE_DIR, "untitled");
+        }
+        return new File(AUTOSAVE_DIR,
+                file.getName() + "-" + Integer.toHexString(file.getAbsoluteFile().getPath().hashCode()));
+    }
+
+    private void runMapTask(MapTask<?> task, String message) {
+        ioTask = task;
+        statusBar.setText(message);
+        ioProgress.progressProperty().bind(task.progressProperty());
+        ioProgress.setVisible(true);
+        ioCancelBtn.setVisible(true);
+        task.setOnCancelled(e -> {
+            finishMapTask();
+            statusBar.setText("Cancelled");
+        });
+        task.setOnFailed(e -> {
+            finishMapTask();
+            task.getException().printStackTrace();
+            statusBar.setText("Failed: " + task.getException().getMessage());
+        });
+
+        Thread thread = new Thread(task, "map-io");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void finishMapTask() {
+        ioTask = null;
+        ioProgress.progressProperty().unbind();
+        ioProgress.setVisible(false);
+        ioCancelBtn.setVisible(false);
+    }
+
+    // Background task that MapIO reports progress and checks cancellation through
+    private abstract static class MapTask<T> extends Task<T> implements MapIO.Progress {
+        @Override
+        public void update(double fraction) {
+            updateProgress(fraction, 1);
+        }
+    }
+
+    private void zoom(double zoomFactor) {
+        zoom *= zoomFactor;
+        setMapSize(mapWidth, mapHeight);
+        updateViewport();
+    }
+
+    private void setScale(Stage primaryStage) {
+        TextInputDialog dialog = new TextInputDialog("1.0");
+        dialog.setTitle("Set Map Scale");
+        dialog.setHeaderText("Enter the real-world width of the map image");
+        dialog.setContentText("Real width (" + unitName + "):");
+
+        dialog.showAndWait().ifPresent(input -> {
+            try {
+                double realWidth = Double.parseDouble(input);
+                if (backgroundImage != null && realWidth > 0) {
+                    // Edges cache unscaled lengths, so rescaling is a multiply at read time
+                    scaleRatio = realWidth / backgroundImage.getWidth();
+
+                    edgeListView.refresh(); // the distances shown depend on the scale
+                    redrawCanvas();
+                }
+            } catch (NumberFormatException e) {
+                // Invalid input
+            }
+        });
+    }
+
+    private void handleKeyPress(KeyEvent event, Stage primaryStage) {
+        // System.out.println(event.getCode());
+        switch (event.getCode()) {
+            case A:
+                // Add Node mode
+                isAddNode = true;
+                creatingEdge = false;
+                curvedEdgeMode = false;
+                selectedNode = null;
+                controlPoint = null;
+                break;
+
+            case S:
+                // Straight Edge mode
+                creatingEdge = true;
+                curvedEdgeMode = false;
+                selectedNode = null;
+                controlPoint = null;
+                break;
+
+            case C:
+                // Curved Edge mode
+                creatingEdge = true;
+                curvedEdgeMode = true;
+                selectedNode = null;
+                controlPoint = null;
+                break;
+
+            case BACK_SPACE:
+            case DELETE:
+                // Delete selected
+                deleteSelected();
+                redrawCanvas();
+                break;
+
+            case R:
+                // Rename node
+                renameSelectedNode(primaryStage);
+                selectedNode = null;
+                controlPoint = null;
+                creatingEdge = false;
+                break;
+
+            case PLUS:
+            case EQUALS:
+                // Zoom in
+                zoom(1.1);
+                break;
+
+            case MINUS:
+            case SUBTRACT:
+                // Zoom out
+                zoom(1 / 1.1);
+                break;
+
+            case D:
+                // Toggle distance display
+                showDistances = !showDistances;
+                redrawCanvas();
+                break;
+
+            case N:
+                // Select next node in list
+                if (!nodes.isEmpty()) {
+                    int currentIndex = nodeListView.getSelectionModel().getSelectedIndex();
+                    int newIndex = (currentIndex + 1) % nodes.size();
+                    nodeListView.getSelectionModel().select(newIndex);
+                }
+                break;
+
+            case P:
+                // Select previous node in list
+                if (!nodes.isEmpty()) {
+                    int currentIndex = nodeListView.getSelectionModel().getSelectedIndex();
+                    int newIndex = (currentIndex - 1 + nodes.size()) % nodes.size();
+                    nodeListView.getSelectionModel().select(newIndex);
+                }
+                break;
+
+            case E:
+                // Select next edge in list
+                if (!edges.isEmpty()) {
+                    int currentIndex = edgeListView.getSelectionModel().getSelectedIndex();
+                    int newIndex = (currentIndex + 1) % edges.size();
+                    edgeListView.getSelectionModel().select(newIndex);
+                }
+                break;
+
+            case W:
+                // Select previous edge in list
+                if (!edges.isEmpty()) {
+                    int currentIndex = edgeListView.getSelectionModel().getSelectedIndex();
+                    int newIndex = (currentIndex - 1 + edges.size()) % edges.size();
+                    edgeListView.getSelectionModel().select(newIndex);
+                }
+                break;
+
+            case ESCAPE:
+                // Cancel current operation
+                clearSolution();
+                selectedNode = null;
+                controlPoint = null;
+                creatingEdge = false;
+                redrawCanvas();
+                // clearFN();
+                break;
+
+            case SLASH:
+                logChecker();
+                break;
+
+            case Z:
+                // Ctrl+Z undo, Ctrl+Shift+Z redo
+                if (event.isShortcutDown()) {
+                    showUndoStep(event.isShiftDown() ? journal.redo() : journal.undo(), event.isShiftDown());
+                }
+                break;
+
+            case Y:
+                if (event.isShortcutDown()) {
+                    showUndoStep(journal.redo(), true);
+                }
+                break;
+        }
+    }
+
+    // The change may have removed the selection, so it is dropped rather than checked
+    private void showUndoStep(UndoJournal.Change change, boolean redone) {
+        if (change == null) {
+            statusBar.setText(redone ? "Nothing to redo" : "Nothing to undo");
+            return;
+        }
+        selectedNode = null;
+        draggedNode = null;
+        controlPoint = null;
+        creatingEdge = false;
+        edgeListView.getSelectionModel().clearSelection();
+        if (change.changesLabels()) {
+            updateNodeCombos();
+        }
+        redrawCanvas();
+        statusBar.setText((redone ? "Redid " : "Undid ") + change.describe());
+    }
+
+    public static void main(String[] args) {
+        launch(args);
+    }
+}
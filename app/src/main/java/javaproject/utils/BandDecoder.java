@@ -0,0 +1,242 @@
+package javaproject.utils;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.MultiPixelPackedSampleModel;
+import java.awt.image.Raster;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.io.IOException;
+
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.event.IIOReadUpdateListener;
+import javax.imageio.metadata.IIOMetadata;
+
+import org.w3c.dom.Node;
+
+// Decodes an image top to bottom and hands it over in bands of rows as they
+// complete. The PNG and JPEG readers cannot seek to a row, so reading band by
+// band with a source region would decode from the top for every band; here
+// the reader makes one pass into a full-size destination whose pixels live in
+// a ring of two bands, and each band is handed over before it is overwritten.
+// Formats that are not written in one top-to-bottom pass (interlaced PNG,
+// progressive JPEG, GIF, bottom-up BMP) are read band by band instead.
+final class BandDecoder {
+    interface BandSink {
+        // band is width x rows, starting at row top; it is only valid during the call
+        void band(BufferedImage band, int top) throws IOException;
+    }
+
+    private BandDecoder() {
+    }
+
+    static void decode(ImageReader reader, int bandHeight, BandSink sink) throws IOException {
+        int width = reader.getWidth(0);
+        int height = reader.getHeight(0);
+        ImageTypeSpecifier type = reader.getImageTypes(0).next();
+        SampleModel model = type.getSampleModel(width, height);
+        int stride = scanlineStride(model);
+        if (stride < 0 || model.getDataType() > DataBuffer.TYPE_INT || !sequential(reader)) {
+            decodeByRegion(reader, width, height, bandHeight, sink);
+            return;
+        }
+
+        ColorModel colors = type.getColorModel();
+        RingBuffer ring = new RingBuffer(model, stride, height, 2 * bandHeight);
+        BufferedImage destination = new BufferedImage(colors,
+                Raster.createWritableRaster(model, ring, null), colors.isAlphaPremultiplied(), null);
+        BandListener listener = new BandListener(destination, bandHeight, sink);
+        ImageReadParam param = reader.getDefaultReadParam();
+        param.setDestination(destination);
+        reader.addIIOReadUpdateListener(listener);
+        try {
+            reader.read(0, param);
+        } finally {
+            reader.removeIIOReadUpdateListener(listener);
+        }
+        if (listener.failure != null) {
+            throw listener.failure;
+        }
+        if (listener.outOfOrder) {
+            // The metadata promised one pass but the reader went back; start over
+            decodeByRegion(reader, width, height, bandHeight, sink);
+        } else if (!Thread.currentThread().isInterrupted()) {
+            listener.flush(height);
+        }
+    }
+
+    // One read per band; cheap only for readers that can seek to a row
+    private static void decodeByRegion(ImageReader reader, int width, int height, int bandHeight, BandSink sink)
+            throws IOException {
+        ImageReadParam param = reader.getDefaultReadParam();
+        for (int top = 0; top < height && !Thread.currentThread().isInterrupted(); top += bandHeight) {
+            param.setSourceRegion(new Rectangle(0, top, width, Math.min(bandHeight, height - top)));
+            sink.band(reader.read(0, param), top);
+        }
+    }
+
+    // Whether the reader writes every row once, in order: non-interlaced PNG
+    // and baseline or extended (not progressive) JPEG
+    private static boolean sequential(ImageReader reader) throws IOException {
+        IIOMetadata metadata = reader.getImageMetadata(0);
+        if (metadata == null) {
+            return false;
+        }
+        String format = metadata.getNativeMetadataFormatName();
+        if ("javax_imageio_png_1.0".equals(format)) {
+            Node header = child(metadata.getAsTree(format), "IHDR");
+            return header != null && "none".equals(attribute(header, "interlaceMethod"));
+        }
+        if ("javax_imageio_jpeg_image_1.0".equals(format)) {
+            Node frame = child(child(metadata.getAsTree(format), "markerSequence"), "sof");
+            return frame != null && !"2".equals(attribute(frame, "process"));
+        }
+        return false;
+    }
+
+    private static Node child(Node parent, String name) {
+        if (parent != null) {
+            for (Node node = parent.getFirstChild(); node != null; node = node.getNextSibling()) {
+                if (name.equals(node.getNodeName())) {
+                    return node;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String attribute(Node node, String name) {
+        Node value = node.getAttributes() != null ? node.getAttributes().getNamedItem(name) : null;
+        return value != null ? value.getNodeValue() : null;
+    }
+
+    // Data elements per row, or -1 for a layout whose rows are not contiguous
+    private static int scanlineStride(SampleModel model) {
+        if (model instanceof ComponentSampleModel) {
+            ComponentSampleModel component = (ComponentSampleModel) model;
+            for (int offset : component.getBandOffsets()) {
+                if (offset >= component.getScanlineStride()) {
+                    return -1;
+                }
+            }
+            return component.getScanlineStride();
+        }
+        if (model instanceof SinglePixelPackedSampleModel) {
+            return ((SinglePixelPackedSampleModel) model).getScanlineStride();
+        }
+        if (model instanceof MultiPixelPackedSampleModel) {
+            return ((MultiPixelPackedSampleModel) model).getScanlineStride();
+        }
+        return -1;
+    }
+
+    // Hands bands to the sink as the reader reports rows done, and aborts the
+    // read if it ever writes above a band that was already handed over
+    private static final class BandListener implements IIOReadUpdateListener {
+        final BufferedImage destination;
+        final int bandHeight;
+        final BandSink sink;
+        int flushed;
+        boolean outOfOrder;
+        IOException failure;
+
+        BandListener(BufferedImage destination, int bandHeight, BandSink sink) {
+            this.destination = destination;
+            this.bandHeight = bandHeight;
+            this.sink = sink;
+        }
+
+        void flush(int done) {
+            int height = destination.getHeight();
+            while (failure == null && flushed < height && (done - flushed >= bandHeight || done >= height)) {
+                int rows = Math.min(bandHeight, height - flushed);
+                try {
+                    sink.band(destination.getSubimage(0, flushed, destination.getWidth(), rows), flushed);
+                } catch (IOException e) {
+                    failure = e;
+                }
+                flushed += rows;
+            }
+        }
+
+        @Override
+        public void imageUpdate(ImageReader source, BufferedImage theImage, int minX, int minY, int width,
+                int height, int periodX, int periodY, int[] bands) {
+            if (minY < flushed || periodY != 1) {
+                outOfOrder = true;
+            }
+            if (!outOfOrder) {
+                flush(minY + height);
+            }
+            if (outOfOrder || failure != null || Thread.currentThread().isInterrupted()) {
+                source.abort();
+            }
+        }
+
+        @Override
+        public void passStarted(ImageReader source, BufferedImage theImage, int pass, int minPass, int maxPass,
+                int minX, int minY, int periodX, int periodY, int[] bands) {
+            if (pass > 0 || periodY != 1) {
+                outOfOrder = true;
+                source.abort();
+            }
+        }
+
+        @Override
+        public void passComplete(ImageReader source, BufferedImage theImage) {
+        }
+
+        @Override
+        public void thumbnailPassStarted(ImageReader source, BufferedImage theThumbnail, int pass, int minPass,
+                int maxPass, int minX, int minY, int periodX, int periodY, int[] bands) {
+        }
+
+        @Override
+        public void thumbnailUpdate(ImageReader source, BufferedImage theThumbnail, int minX, int minY, int width,
+                int height, int periodX, int periodY, int[] bands) {
+        }
+
+        @Override
+        public void thumbnailPassComplete(ImageReader source, BufferedImage theThumbnail) {
+        }
+    }
+
+    // Element storage for a full-height raster that keeps only the last
+    // ringRows rows; row-major layouts put row y at y * stride, so an element
+    // index wraps by the ring size
+    private static final class RingBuffer extends DataBuffer {
+        private final int[][] banks;
+        private final int ringSize;
+
+        RingBuffer(SampleModel model, int stride, int height, int ringRows) {
+            super(model.getDataType(), stride * height, numBanks(model));
+            ringSize = stride * Math.min(height, ringRows);
+            banks = new int[getNumBanks()][ringSize];
+        }
+
+        private static int numBanks(SampleModel model) {
+            int banks = 1;
+            if (model instanceof ComponentSampleModel) {
+                for (int bank : ((ComponentSampleModel) model).getBankIndices()) {
+                    banks = Math.max(banks, bank + 1);
+                }
+            }
+            return banks;
+        }
+
+        @Override
+        public int getElem(int bank, int i) {
+            return banks[bank][i % ringSize];
+        }
+
+        @Override
+        public void setElem(int bank, int i, int val) {
+            banks[bank][i % ringSize] = val;
+        }
+    }
+}
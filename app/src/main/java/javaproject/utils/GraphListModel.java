@@ -0,0 +1,149 @@
+package javaproject.utils;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+import javafx.collections.ObservableListBase;
+import javaproject.models.Edge;
+import javaproject.models.Graph;
+import javaproject.models.GraphListener;
+import javaproject.models.Node;
+
+// Observable view of a graph's nodes or edges for a ListView. Rows are the
+// graph's own objects, so nothing is copied or formatted up front, and each
+// graph event becomes a single-row change; the list's cell factory formats
+// only the rows on screen.
+public class GraphListModel<T> extends ObservableListBase<T> implements GraphListener {
+    private final Function<Graph, List<T>> view;
+    private final boolean forNodes;
+    private Graph graph;
+    private List<T> items;
+    private int reportedSize; // size as last announced to list listeners
+
+    private GraphListModel(Graph graph, Function<Graph, List<T>> view, boolean forNodes) {
+        this.view = view;
+        this.forNodes = forNodes;
+        this.graph = graph;
+        this.items = view.apply(graph);
+        this.reportedSize = items.size();
+        graph.addListener(this);
+    }
+
+    public static GraphListModel<Node> nodes(Graph graph) {
+        return new GraphListModel<>(graph, Graph::getNodes, true);
+    }
+
+    public static GraphListModel<Edge> edges(Graph graph) {
+        return new GraphListModel<>(graph, Graph::getEdges, false);
+    }
+
+    // Follows a replacement graph, e.g. after loading a map
+    public void setGraph(Graph newGraph) {
+        graph.removeListener(this);
+        graph = newGraph;
+        graph.addListener(this);
+        graphReset();
+    }
+
+    @Override
+    public T get(int index) {
+        return items.get(index);
+    }
+
+    @Override
+    public int size() {
+        return items.size();
+    }
+
+    @Override
+    public void nodeAdded(Node node) {
+        if (forNodes) {
+            added(node.id);
+        }
+    }
+
+    @Override
+    public void nodeRemoved(Node node, int index) {
+        if (forNodes) {
+            @SuppressWarnings("unchecked")
+            T removed = (T) node;
+            removed(removed, index);
+        }
+    }
+
+    @Override
+    public void nodeChanged(Node node) {
+        if (forNodes) {
+            updated(node.id);
+        }
+    }
+
+    @Override
+    public void edgeAdded(Edge edge) {
+        if (!forNodes) {
+            added(edge.id);
+        }
+    }
+
+    @Override
+    public void edgeRemoved(Edge edge, int index) {
+        if (!forNodes) {
+            @SuppressWarnings("unchecked")
+            T removed = (T) edge;
+            removed(removed, index);
+        }
+    }
+
+    @Override
+    public void edgeChanged(Edge edge) {
+        if (!forNodes) {
+            updated(edge.id);
+        }
+    }
+
+    // The old rows may already be gone from the graph, so the replacement
+    // only reports how many were removed
+    @Override
+    public void graphReset() {
+        long started = PerfMetrics.start();
+        items = view.apply(graph);
+        beginChange();
+        nextReplace(0, items.size(), Collections.nCopies(reportedSize, null));
+        endChange();
+        reportedSize = items.size();
+        PerfMetrics.LISTS.stop(started);
+    }
+
+    private void added(int index) {
+        long started = PerfMetrics.start();
+        beginChange();
+        nextAdd(index, index + 1);
+        endChange();
+        reportedSize = items.size();
+        PerfMetrics.LISTS.stop(started);
+    }
+
+    // The last element was swapped into index, unless index was the last slot
+    private void removed(T element, int index) {
+        long started = PerfMetrics.start();
+        beginChange();
+        if (index < items.size()) {
+            nextRemove(items.size(), items.get(index));
+            nextSet(index, element);
+        } else {
+            nextRemove(index, element);
+        }
+        endChange();
+        reportedSize = items.size();
+        PerfMetrics.LISTS.stop(started);
+    }
+
+    private void updated(int index) {
+        long started = PerfMetrics.start();
+        beginChange();
+        nextUpdate(index);
+        endChange();
+        PerfMetrics.LISTS.stop(started);
+    }
+}
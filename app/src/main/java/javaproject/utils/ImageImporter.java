@@ -2,15 +2,16 @@
 package javaproject.utils;
 
 import java.io.File;
+import java.io.IOException;
 
-import javafx.scene.canvas.Canvas;
-import javafx.scene.image.Image;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 
 public class ImageImporter {
 
-    public static void importImage(Stage primaryStage, Canvas canvas, ImageSetter imageSetter, Runnable redraw) {
+    // Only the image header is read here; tiles are decoded in the background
+    // and redraw runs again whenever more of the image becomes available
+    public static void importImage(Stage primaryStage, ImageSetter imageSetter, Runnable redraw) {
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle("Import Map Image");
         fileChooser.getExtensionFilters().addAll(
@@ -20,18 +21,16 @@ public class ImageImporter {
 
         if (file != null) {
             try {
-                Image backgroundImage = new Image(file.toURI().toString());
-                canvas.setWidth(backgroundImage.getWidth());
-                canvas.setHeight(backgroundImage.getHeight());
-                imageSetter.setImage(backgroundImage); // update the image in the caller
+                TiledImage backgroundImage = TiledImage.open(file, redraw);
+                imageSetter.setImage(backgroundImage); // update the image and map size in the caller
                 redraw.run(); // trigger canvas redraw
-            } catch (Exception e) {
+            } catch (IOException e) {
                 e.printStackTrace();
             }
         }
     }
 
     public interface ImageSetter {
-        void setImage(Image image);
+        void setImage(TiledImage image);
     }
 }
@@ -0,0 +1,96 @@
+package javaproject.utils;
+
+import java.util.Arrays;
+
+import javafx.animation.AnimationTimer;
+
+// Coalesces redraw requests: handlers only mark layers dirty, and each dirty
+// layer is painted at most once per pulse, however many events arrived.
+// Also records the latency from the first request of a frame to the end of
+// its painting, i.e. how long an input event waits to reach the screen.
+public class RedrawScheduler extends AnimationTimer {
+    public static final int BACKGROUND = 1;
+    public static final int GRAPH = 2;
+    public static final int OVERLAY = 4;
+    public static final int ALL = BACKGROUND | GRAPH | OVERLAY;
+
+    private static final int SAMPLES = 1024; // latencies kept for percentiles
+
+    private final Runnable background, graph, overlay;
+    private int dirty;
+    private long firstRequest; // nanoTime of the first request since the last frame
+
+    private long requests, frames;
+    private long maxLatency, totalLatency;
+    private final long[] latencies = new long[SAMPLES];
+    private int sampleCount;
+
+    public RedrawScheduler(Runnable background, Runnable graph, Runnable overlay) {
+        this.background = background;
+        this.graph = graph;
+        this.overlay = overlay;
+    }
+
+    public void request(int layers) {
+        if (dirty == 0) {
+            firstRequest = System.nanoTime();
+        }
+        dirty |= layers;
+        requests++;
+    }
+
+    @Override
+    public void handle(long now) {
+        flush();
+    }
+
+    // Paints pending layers immediately, for changes that must not lag a
+    // frame behind, such as the layers moving with the scroll position
+    public void flush() {
+        if (dirty == 0) {
+            return;
+        }
+        int layers = dirty;
+        dirty = 0;
+        long started = PerfMetrics.start();
+        if ((layers & BACKGROUND) != 0) {
+            background.run();
+        }
+        if ((layers & GRAPH) != 0) {
+            graph.run();
+        }
+        if ((layers & OVERLAY) != 0) {
+            overlay.run();
+        }
+        PerfMetrics.FRAME.stop(started);
+
+        long latency = System.nanoTime() - firstRequest;
+        frames++;
+        totalLatency += latency;
+        maxLatency = Math.max(maxLatency, latency);
+        latencies[sampleCount++ % SAMPLES] = latency;
+    }
+
+    public void resetStats() {
+        requests = 0;
+        frames = 0;
+        maxLatency = 0;
+        totalLatency = 0;
+        sampleCount = 0;
+    }
+
+    public String stats() {
+        if (frames == 0) {
+            return "Redraw: no frames";
+        }
+        long[] sorted = Arrays.copyOf(latencies, Math.min(sampleCount, SAMPLES));
+        Arrays.sort(sorted);
+        return String.format("Redraw: %d requests -> %d frames (%.1fx coalesced), "
+                        + "event-to-frame latency mean %.2f ms, p50 %.2f ms, p95 %.2f ms, max %.2f ms",
+                requests, frames, requests / (double) frames,
+                totalLatency / 1e6 / frames,
+                sorted[sorted.length / 2] / 1e6,
+                sorted[(int) (sorted.length * 0.95)] / 1e6,
+                maxLatency / 1e6);
+    }
+}
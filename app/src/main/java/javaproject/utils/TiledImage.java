@@ -0,0 +1,290 @@
+package javaproject.utils;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import javafx.application.Platform;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+
+// Background image split into a pyramid of 256px tiles cached on disk.
+// Level 0 is full resolution and each level above halves it. The pyramid is
+// built on a background thread, tiles are decoded lazily as the viewport
+// needs them, and decoded tiles sit in a bounded LRU of soft references so
+// the GC can drop them under memory pressure.
+public class TiledImage {
+    public static final int TILE_SIZE = 256;
+    private static final int OVERVIEW_SIZE = 1024;
+    private static final int MAX_CACHED_TILES = 512; // ~128 MB of decoded tiles
+
+    private final File source;
+    private final File cacheDir;
+    private final int width, height;
+    private final int levels;
+    private final Runnable onUpdate;
+    private final ExecutorService builder;
+
+    // Tile rows written per level; a tile is readable once its row is counted
+    private final AtomicIntegerArray rowsReady;
+    private volatile Image overview;
+
+    private final Map<String, SoftReference<Image>> tiles =
+            new LinkedHashMap<String, SoftReference<Image>>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, SoftReference<Image>> eldest) {
+                    return size() > MAX_CACHED_TILES;
+                }
+            };
+
+    private TiledImage(File source, File cacheDir, int width, int height, Runnable onUpdate) {
+        this.source = source;
+        this.cacheDir = cacheDir;
+        this.width = width;
+        this.height = height;
+        this.onUpdate = onUpdate;
+
+        int levelCount = 1;
+        while (levelWidth(levelCount - 1) > TILE_SIZE || levelHeight(levelCount - 1) > TILE_SIZE) {
+            levelCount++;
+        }
+        this.levels = levelCount;
+        this.rowsReady = new AtomicIntegerArray(levels);
+        this.builder = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "tile-builder");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Reads only the image header; decoding and tiling continue in the background.
+    // onUpdate runs on the FX thread whenever new tiles become drawable.
+    public static TiledImage open(File source, Runnable onUpdate) throws IOException {
+        int width, height;
+        try (ImageInputStream in = ImageIO.createImageInputStream(source)) {
+            ImageReader reader = readerFor(in, source);
+            try {
+                width = reader.getWidth(0);
+                height = reader.getHeight(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+
+        String key = source.getAbsolutePath() + "|" + source.length() + "|" + source.lastModified();
+        File cacheDir = new File(System.getProperty("user.home"),
+                ".mapjavafx/tiles/" + UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)));
+
+        TiledImage image = new TiledImage(source, cacheDir, width, height, onUpdate);
+        image.builder.submit(image::build);
+        return image;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public void close() {
+        builder.shutdownNow();
+        tiles.clear();
+    }
+
+    // Draws the part of the image inside the view rectangle (map coordinates)
+    // into a context that is already transformed to map coordinates
+    public void draw(GraphicsContext gc, double viewX, double viewY, double viewWidth, double viewHeight, double zoom) {
+        double fromX = Math.max(0, viewX);
+        double fromY = Math.max(0, viewY);
+        double toX = Math.min(width, viewX + viewWidth);
+        double toY = Math.min(height, viewY + viewHeight);
+        if (toX <= fromX || toY <= fromY) {
+            return;
+        }
+
+        // The overview fills in wherever tiles are not decoded yet
+        Image preview = overview;
+        if (preview != null) {
+            double ratio = preview.getWidth() / width;
+            gc.drawImage(preview, fromX * ratio, fromY * ratio, (toX - fromX) * ratio, (toY - fromY) * ratio,
+                    fromX, fromY, toX - fromX, toY - fromY);
+        }
+
+        int level = (int) Math.floor(Math.log(1 / zoom) / Math.log(2));
+        level = Math.max(0, Math.min(levels - 1, level));
+        double span = (double) TILE_SIZE * (1 << level); // map pixels covered by one tile
+        int ready = rowsReady.get(level);
+        int lastColumn = (int) Math.min(Math.ceil(levelWidth(level) / (double) TILE_SIZE) - 1, toX / span);
+        int lastRow = (int) Math.min(ready - 1, toY / span);
+        for (int row = (int) (fromY / span); row <= lastRow; row++) {
+            for (int column = (int) (fromX / span); column <= lastColumn; column++) {
+                Image tile = tile(level, column, row);
+                if (tile != null && tile.getProgress() >= 1 && !tile.isError()) {
+                    double scale = 1 << level;
+                    gc.drawImage(tile, column * span, row * span, tile.getWidth() * scale, tile.getHeight() * scale);
+                }
+            }
+        }
+    }
+
+    // Decoded tile, loading it asynchronously on first use
+    private Image tile(int level, int column, int row) {
+        String key = level + "/" + column + "_" + row;
+        SoftReference<Image> reference = tiles.get(key);
+        Image image = reference != null ? reference.get() : null;
+        if (image == null) {
+            image = new Image(tileFile(level, column, row).toURI().toString(), true);
+            image.progressProperty().addListener((obs, oldVal, newVal) -> {
+                if (newVal.doubleValue() >= 1) {
+                    onUpdate.run();
+                }
+            });
+            tiles.put(key, new SoftReference<>(image));
+        }
+        return image;
+    }
+
+    private void build() {
+        try {
+            File complete = new File(cacheDir, "complete");
+            if (complete.exists()) {
+                overview = new Image(new File(cacheDir, "overview.png").toURI().toString());
+                for (int level = 0; level < levels; level++) {
+                    rowsReady.set(level, rows(level));
+                }
+                Platform.runLater(onUpdate);
+                return;
+            }
+
+            for (int level = 0; level < levels; level++) {
+                new File(cacheDir, String.valueOf(level)).mkdirs();
+            }
+            try (ImageInputStream in = ImageIO.createImageInputStream(source)) {
+                ImageReader reader = readerFor(in, source);
+                try {
+                    buildOverview(reader);
+                    buildBaseLevel(reader);
+                } finally {
+                    reader.dispose();
+                }
+            }
+            for (int level = 1; level < levels; level++) {
+                buildLevel(level);
+            }
+            complete.createNewFile();
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            // Closed while building; the partial cache is rebuilt next time
+        }
+    }
+
+    // Subsampled decode of the whole image, small enough to keep in memory
+    private void buildOverview(ImageReader reader) throws IOException {
+        int step = Math.max(1, (int) Math.ceil(Math.max(width, height) / (double) OVERVIEW_SIZE));
+        ImageReadParam param = reader.getDefaultReadParam();
+        param.setSourceSubsampling(step, step, 0, 0);
+        File file = new File(cacheDir, "overview.png");
+        ImageIO.write(reader.read(0, param), "png", file);
+        overview = new Image(file.toURI().toString());
+        Platform.runLater(onUpdate);
+    }
+
+    // Cuts each band of 256 rows into tiles as the single decoding pass
+    // completes it, so memory stays at width x 512 pixels
+    private void buildBaseLevel(ImageReader reader) throws IOException, InterruptedException {
+        BandDecoder.decode(reader, TILE_SIZE, (strip, top) -> {
+            int row = top / TILE_SIZE;
+            for (int column = 0; column * TILE_SIZE < width; column++) {
+                int left = column * TILE_SIZE;
+                BufferedImage tile = strip.getSubimage(left, 0, Math.min(TILE_SIZE, width - left), strip.getHeight());
+                ImageIO.write(tile, "png", tileFile(0, column, row));
+            }
+            rowsReady.set(0, row + 1);
+            Platform.runLater(onUpdate);
+        });
+        checkInterrupted();
+    }
+
+    // Each tile is its four children from the level below, halved
+    private void buildLevel(int level) throws IOException, InterruptedException {
+        int columns = (int) Math.ceil(levelWidth(level) / (double) TILE_SIZE);
+        for (int row = 0; row < rows(level); row++) {
+            for (int column = 0; column < columns; column++) {
+                checkInterrupted();
+                int tileWidth = Math.min(TILE_SIZE, levelWidth(level) - column * TILE_SIZE);
+                int tileHeight = Math.min(TILE_SIZE, levelHeight(level) - row * TILE_SIZE);
+                BufferedImage tile = new BufferedImage(tileWidth, tileHeight, BufferedImage.TYPE_INT_ARGB);
+                Graphics2D g = tile.createGraphics();
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                for (int dy = 0; dy < 2; dy++) {
+                    for (int dx = 0; dx < 2; dx++) {
+                        File child = tileFile(level - 1, column * 2 + dx, row * 2 + dy);
+                        if (child.exists()) {
+                            BufferedImage part = ImageIO.read(child);
+                            g.drawImage(part, dx * TILE_SIZE / 2, dy * TILE_SIZE / 2,
+                                    (part.getWidth() + 1) / 2, (part.getHeight() + 1) / 2, null);
+                        }
+                    }
+                }
+                g.dispose();
+                ImageIO.write(tile, "png", tileFile(level, column, row));
+            }
+            rowsReady.set(level, row + 1);
+        }
+        Platform.runLater(onUpdate);
+    }
+
+    private int levelWidth(int level) {
+        return Math.max(1, (int) Math.ceil(width / (double) (1 << level)));
+    }
+
+    private int levelHeight(int level) {
+        return Math.max(1, (int) Math.ceil(height / (double) (1 << level)));
+    }
+
+    private int rows(int level) {
+        return (int) Math.ceil(levelHeight(level) / (double) TILE_SIZE);
+    }
+
+    private File tileFile(int level, int column, int row) {
+        return new File(cacheDir, level + "/" + column + "_" + row + ".png");
+    }
+
+    private static void checkInterrupted() throws InterruptedException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedException();
+        }
+    }
+
+    private static ImageReader readerFor(ImageInputStream in, File source) throws IOException {
+        if (in == null) {
+            throw new IOException("Cannot read " + source);
+        }
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+        if (!readers.hasNext()) {
+            throw new IOException("Unsupported image format: " + source);
+        }
+        ImageReader reader = readers.next();
+        reader.setInput(in);
+        return reader;
+    }
+}
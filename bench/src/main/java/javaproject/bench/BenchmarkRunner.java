@@ -0,0 +1,24 @@
+package javaproject.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// JMH's own command line, with the GC profiler always on so every result
+// comes with its allocation rate (gc.alloc.rate.norm is bytes per operation).
+// The benchmarks run in throughput and sample-time modes; the latter reports
+// latency percentiles.
+//
+//   java -jar bench/target/benchmarks.jar                          everything
+//   java -jar bench/target/benchmarks.jar Pathfinding -p nodes=1000 one class, one size
+public class BenchmarkRunner {
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,143 @@
+package javaproject.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javaproject.models.AdjacencyIndex;
+import javaproject.utils.AStarPathfinder;
+import javaproject.utils.ContractionHierarchy;
+import javaproject.utils.MapGenerator;
+import javaproject.utils.SearchWorkspace;
+
+// What Contraction Hierarchies cost to build and what they buy per query:
+//
+//   preprocess     ContractionHierarchy.build on the adjacency snapshot, one
+//                  build per iteration; the "shortcuts" and "memoryBytes"
+//                  secondary results are the size of what it built, and the
+//                  GC profiler's gc.alloc.rate.norm what building allocated
+//   astar          AStarPathfinder.findPath, the default search
+//   bidirectional  AStarPathfinder.findPathBidirectional without landmarks
+//   hierarchy      ContractionHierarchy.findPath on a hierarchy built in setup
+//
+// The three query benchmarks ask the same seeded queries, so the ratio of
+// their ops/ms is the speedup.
+//
+//   java -jar bench/target/benchmarks.jar ContractionHierarchy -p nodes=10000
+//   java -jar bench/target/benchmarks.jar "ContractionHierarchy.preprocess"
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class ContractionHierarchyBenchmark {
+    private static final int QUERIES = 256;
+
+    @Param({ "1000", "10000", "100000" })
+    public int nodes;
+
+    @Param({ MapGenerator.GRID, MapGenerator.ROAD })
+    public String layout;
+
+    private AdjacencyIndex index;
+    private ContractionHierarchy hierarchy;
+    private int[] starts, goals;
+
+    @Setup
+    public void setUp() {
+        index = MapGenerator.generate(layout, nodes, MapGenerator.DEFAULT_SEED).adjacency();
+        hierarchy = ContractionHierarchy.build(index, new AtomicBoolean());
+        Random random = new Random(7);
+        starts = new int[QUERIES];
+        goals = new int[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            starts[i] = random.nextInt(nodes);
+            goals[i] = random.nextInt(nodes);
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Built {
+        public long shortcuts;
+        public long memoryBytes;
+
+        @Setup(Level.Iteration)
+        public void clear() {
+            shortcuts = 0;
+            memoryBytes = 0;
+        }
+    }
+
+    // Per-thread workspaces; "expanded" is reported as a rate next to ops/ms,
+    // so expanded over ops is the nodes each query expands
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Query {
+        public long expanded;
+        int next;
+        final SearchWorkspace forward = new SearchWorkspace();
+        final SearchWorkspace backward = new SearchWorkspace();
+
+        @Setup(Level.Iteration)
+        public void clear() {
+            expanded = 0;
+        }
+
+        double count(AStarPathfinder.PathResult result) {
+            expanded += result.nodesExpanded;
+            return result.totalDistance;
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public ContractionHierarchy preprocess(Built built) {
+        ContractionHierarchy result = ContractionHierarchy.build(index, new AtomicBoolean());
+        built.shortcuts = result.shortcuts;
+        built.memoryBytes = result.memoryBytes();
+        return result;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public double astar(Query query) {
+        int i = query.next++ & (QUERIES - 1);
+        return query.count(AStarPathfinder.findPath(index, starts[i], goals[i], query.forward, null));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public double bidirectional(Query query) {
+        int i = query.next++ & (QUERIES - 1);
+        return query.count(AStarPathfinder.findPathBidirectional(index, starts[i], goals[i],
+                query.forward, query.backward, null));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public double hierarchy(Query query) {
+        int i = query.next++ & (QUERIES - 1);
+        return query.count(hierarchy.findPath(starts[i], goals[i], query.forward, query.backward));
+    }
+}
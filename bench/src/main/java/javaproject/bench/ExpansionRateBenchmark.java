@@ -0,0 +1,174 @@
+package javaproject.bench;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javaproject.models.AdjacencyIndex;
+import javaproject.models.Edge;
+import javaproject.models.Graph;
+import javaproject.models.Node;
+import javaproject.utils.AStarPathfinder;
+import javaproject.utils.MapGenerator;
+import javaproject.utils.SearchWorkspace;
+
+// Nodes expanded per second by A*, before and after the CSR adjacency index
+// and the indexed decrease-key heap, on the same seeded queries:
+//
+//   listScan       the original search: neighbours found by scanning every
+//                  edge, a PriorityQueue ordered through a mutable fScore map
+//                  with O(n) contains(), HashMap scores keyed by Node
+//   csrQueue       the CSR index for neighbours, the same PriorityQueue and maps
+//   csrIndexedHeap AStarPathfinder.findPath as it is now
+//
+// The "expanded" secondary result is the rate to compare; ops/s alone is
+// skewed because the old queue polls nodes out of order and expands more.
+// listScan is O(E) per expansion, so keep it to the smaller sizes:
+//
+//   java -jar bench/target/benchmarks.jar ExpansionRate
+//   java -jar bench/target/benchmarks.jar "ExpansionRate.csr" -p nodes=100000
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class ExpansionRateBenchmark {
+    private static final int QUERIES = 64;
+
+    @Param({ "1000", "10000" })
+    public int nodes;
+
+    @Param({ MapGenerator.GRID, MapGenerator.ROAD })
+    public String layout;
+
+    private Graph graph;
+    private AdjacencyIndex index;
+    private Node[] starts, goals;
+
+    @Setup
+    public void setUp() {
+        graph = MapGenerator.generate(layout, nodes, MapGenerator.DEFAULT_SEED);
+        index = graph.adjacency();
+        Random random = new Random(7);
+        starts = new Node[QUERIES];
+        goals = new Node[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            starts[i] = graph.getNodes().get(random.nextInt(nodes));
+            goals[i] = graph.getNodes().get(random.nextInt(nodes));
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Expansions {
+        public long expanded;
+        int next;
+        final SearchWorkspace workspace = new SearchWorkspace();
+
+        @Setup(Level.Iteration)
+        public void clear() {
+            expanded = 0;
+        }
+    }
+
+    @Benchmark
+    public double listScan(Expansions counter) {
+        int i = counter.next++ & (QUERIES - 1);
+        return Baseline.search(graph.getEdges(), graph.getNodes(), null, starts[i], goals[i], counter);
+    }
+
+    @Benchmark
+    public double csrQueue(Expansions counter) {
+        int i = counter.next++ & (QUERIES - 1);
+        return Baseline.search(null, graph.getNodes(), index, starts[i], goals[i], counter);
+    }
+
+    @Benchmark
+    public double csrIndexedHeap(Expansions counter) {
+        int i = counter.next++ & (QUERIES - 1);
+        AStarPathfinder.PathResult result =
+                AStarPathfinder.findPath(index, starts[i].id, goals[i].id, counter.workspace, null);
+        counter.expanded += result.nodesExpanded;
+        return result.totalDistance;
+    }
+
+    // The open set as it was before IndexedMinHeap. With edges given the
+    // neighbours come from a scan over all of them, otherwise from the index.
+    static class Baseline {
+        static double search(List<Edge> edges, List<Node> nodes, AdjacencyIndex index, Node start, Node goal,
+                             Expansions counter) {
+            Map<Node, Double> gScore = new HashMap<>();
+            Map<Node, Double> fScore = new HashMap<>();
+            Map<Node, Node> cameFrom = new HashMap<>(); // kept up to date as before, for a fair cost
+            PriorityQueue<Node> openSet = new PriorityQueue<>(
+                    Comparator.comparingDouble(n -> fScore.getOrDefault(n, Double.POSITIVE_INFINITY)));
+            for (Node node : nodes) {
+                gScore.put(node, Double.POSITIVE_INFINITY);
+                fScore.put(node, Double.POSITIVE_INFINITY);
+            }
+            gScore.put(start, 0.0);
+            fScore.put(start, heuristic(start, goal));
+            openSet.add(start);
+
+            List<Edge> neighbours = new ArrayList<>();
+            while (!openSet.isEmpty()) {
+                Node current = openSet.poll();
+                counter.expanded++;
+                if (current == goal) {
+                    return gScore.get(current);
+                }
+                neighbours.clear();
+                if (edges != null) {
+                    for (Edge edge : edges) {
+                        if (edge.node1 == current || edge.node2 == current) {
+                            neighbours.add(edge);
+                        }
+                    }
+                } else {
+                    for (int i = index.offsets[current.id]; i < index.offsets[current.id + 1]; i++) {
+                        neighbours.add(index.edges[index.edgeIds[i]]);
+                    }
+                }
+                for (Edge edge : neighbours) {
+                    Node neighbour = edge.node1 == current ? edge.node2 : edge.node1;
+                    double tentative = gScore.get(current) + edge.getLength(1.0);
+                    if (tentative < gScore.get(neighbour)) {
+                        cameFrom.put(neighbour, current);
+                        gScore.put(neighbour, tentative);
+                        fScore.put(neighbour, tentative + heuristic(neighbour, goal));
+                        if (!openSet.contains(neighbour)) {
+                            openSet.add(neighbour);
+                        }
+                    }
+                }
+            }
+            return 0; // no path
+        }
+
+        private static double heuristic(Node a, Node b) {
+            double dx = a.x - b.x;
+            double dy = a.y - b.y;
+            return Math.sqrt(dx * dx + dy * dy);
+        }
+    }
+}
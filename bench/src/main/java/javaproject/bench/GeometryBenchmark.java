@@ -0,0 +1,57 @@
+package javaproject.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javaproject.models.ControlPoint;
+import javaproject.models.Node;
+import javaproject.utils.MathUtils;
+
+// Edge length computations over a seeded set of random segments and curves
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeometryBenchmark {
+    private static final int SHAPES = 1024;
+
+    private final Node[] from = new Node[SHAPES];
+    private final Node[] to = new Node[SHAPES];
+    private final ControlPoint[] controls = new ControlPoint[SHAPES];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(3);
+        for (int i = 0; i < SHAPES; i++) {
+            from[i] = new Node(random.nextDouble() * 1000, random.nextDouble() * 1000, "a", false);
+            to[i] = new Node(random.nextDouble() * 1000, random.nextDouble() * 1000, "b", false);
+            controls[i] = new ControlPoint(random.nextDouble() * 1000, random.nextDouble() * 1000);
+        }
+    }
+
+    @Benchmark
+    public double calculateDistance() {
+        int i = next++ & (SHAPES - 1);
+        return MathUtils.calculateDistance(from[i], to[i], 1.0);
+    }
+
+    @Benchmark
+    public double calculateCurveLength() {
+        int i = next++ & (SHAPES - 1);
+        return MathUtils.calculateCurveLength(from[i], controls[i], to[i], 1.0);
+    }
+}
@@ -0,0 +1,72 @@
+package javaproject.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javaproject.models.Edge;
+import javaproject.models.Graph;
+import javaproject.models.Node;
+import javaproject.utils.MapGenerator;
+
+// Canvas hit-testing through the spatial grid, at seeded random points over
+// the map: Graph.nodeAt with the node radius and Graph.edgeAt with the click
+// tolerance the editor uses. The grid cells are looked up by primitive key,
+// so gc.alloc.rate.norm should read about 0 B/op:
+//
+//   java -jar bench/target/benchmarks.jar HitTest -p nodes=20000
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HitTestBenchmark {
+    private static final int POINTS = 1024;
+
+    @Param({ "20000", "1000000" })
+    public int nodes;
+
+    private Graph graph;
+    private final double[] x = new double[POINTS];
+    private final double[] y = new double[POINTS];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        graph = MapGenerator.generate(MapGenerator.ROAD, nodes, MapGenerator.DEFAULT_SEED);
+        double maxX = 0, maxY = 0;
+        for (Node node : graph.getNodes()) {
+            maxX = Math.max(maxX, node.x);
+            maxY = Math.max(maxY, node.y);
+        }
+        Random random = new Random(9);
+        for (int i = 0; i < POINTS; i++) {
+            x[i] = random.nextDouble() * maxX;
+            y[i] = random.nextDouble() * maxY;
+        }
+    }
+
+    @Benchmark
+    public Node nodeAt() {
+        int i = next++ & (POINTS - 1);
+        return graph.nodeAt(x[i], y[i], 5);
+    }
+
+    @Benchmark
+    public Edge edgeAt() {
+        int i = next++ & (POINTS - 1);
+        return graph.edgeAt(x[i], y[i], 4);
+    }
+}
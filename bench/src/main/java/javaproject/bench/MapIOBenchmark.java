@@ -0,0 +1,73 @@
+package javaproject.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javaproject.models.Graph;
+import javaproject.utils.MapGenerator;
+import javaproject.utils.MapIO;
+
+// Map save and load through MapIO, in the JSON format and, for comparison,
+// the binary one. Files go to a temporary directory removed afterwards.
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class MapIOBenchmark {
+    @Param({ "1000", "10000", "100000", "1000000" })
+    public int nodes;
+
+    @Param({ "json", "mapbin" })
+    public String format;
+
+    private File directory;
+    private File saved, scratch;
+    private MapIO.Snapshot snapshot;
+
+    @Setup
+    public void setUp() throws IOException {
+        Graph graph = MapGenerator.generate(MapGenerator.GRID, nodes, MapGenerator.DEFAULT_SEED);
+        snapshot = new MapIO.Snapshot(graph);
+        directory = Files.createTempDirectory("mapio-bench").toFile();
+        String extension = format.equals("json") ? ".json" : MapIO.BINARY_EXTENSION;
+        saved = new File(directory, "map" + extension);
+        scratch = new File(directory, "out" + extension);
+        MapIO.save(snapshot, saved, MapIO.NO_PROGRESS);
+    }
+
+    @TearDown
+    public void tearDown() {
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    @Benchmark
+    public Graph load() throws IOException {
+        return MapIO.load(saved, MapIO.NO_PROGRESS);
+    }
+
+    @Benchmark
+    public File save() throws IOException {
+        MapIO.save(snapshot, scratch, MapIO.NO_PROGRESS);
+        return scratch;
+    }
+}
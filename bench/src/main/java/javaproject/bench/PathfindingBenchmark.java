@@ -0,0 +1,76 @@
+package javaproject.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javaproject.models.Graph;
+import javaproject.models.Node;
+import javaproject.utils.AStarPathfinder;
+import javaproject.utils.MapGenerator;
+import javaproject.utils.SearchWorkspace;
+
+// AStarPathfinder.findPath between random node pairs on each generated
+// layout, cycling through a fixed seeded list so every run asks the same queries
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class PathfindingBenchmark {
+    private static final int QUERIES = 256;
+
+    @Param({ "1000", "10000", "100000", "1000000" })
+    public int nodes;
+
+    @Param({ MapGenerator.GRID, MapGenerator.GEOMETRIC, MapGenerator.ROAD })
+    public String layout;
+
+    private Graph graph;
+    private Node[] starts, goals;
+
+    @Setup
+    public void setUp() {
+        graph = MapGenerator.generate(layout, nodes, MapGenerator.DEFAULT_SEED);
+        graph.adjacency();
+        Random random = new Random(7);
+        starts = new Node[QUERIES];
+        goals = new Node[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            starts[i] = graph.getNodes().get(random.nextInt(nodes));
+            goals[i] = graph.getNodes().get(random.nextInt(nodes));
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Query {
+        final SearchWorkspace workspace = new SearchWorkspace();
+        int next;
+    }
+
+    // What solvePath does: one workspace reused across queries
+    @Benchmark
+    public AStarPathfinder.PathResult findPath(Query query) {
+        int i = query.next++ & (QUERIES - 1);
+        return AStarPathfinder.findPath(graph, starts[i], goals[i], query.workspace);
+    }
+
+    // A fresh workspace per query, for comparing allocation rates
+    @Benchmark
+    public AStarPathfinder.PathResult findPathFreshWorkspace(Query query) {
+        int i = query.next++ & (QUERIES - 1);
+        return AStarPathfinder.findPath(graph, starts[i], goals[i]);
+    }
+}
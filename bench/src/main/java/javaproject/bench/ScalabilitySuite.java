@@ -0,0 +1,218 @@
+package javaproject.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import javaproject.models.AdjacencyIndex;
+import javaproject.models.Edge;
+import javaproject.models.Graph;
+import javaproject.models.Node;
+import javaproject.utils.AStarPathfinder;
+import javaproject.utils.MapGenerator;
+import javaproject.utils.MapIO;
+import javaproject.utils.SearchWorkspace;
+
+// Scalability regression check. For every layout and size tier it generates a
+// map with MapGenerator, writes it in the JSON save format and times, against
+// that tier's budget:
+//
+//   load    MapIO.load of the file plus the first adjacency() build, i.e. until
+//           the map can be routed
+//   route   95th percentile of A* between seeded random node pairs, one
+//           workspace reused as the editor does
+//   render  95th percentile of collecting the nodes and edges inside a
+//           1920x1080 viewport at zoom 1, the culling paintGraph does every frame
+//
+// Unlike the JMH benchmarks this is a pass/fail gate: it prints one row per
+// map and exits with status 1 when anything is over budget. --slack scales
+// every budget, for slower machines.
+//
+//   java -cp bench/target/benchmarks.jar javaproject.bench.ScalabilitySuite
+//        [--tiers 1000,10000,100000,1000000] [--layouts grid,geometric,road] [--slack F]
+//
+// or mvn -B verify -Pscalability -pl bench -am
+public class ScalabilitySuite {
+    // About three times the slowest layout on a single-core machine. Render
+    // grows until a tier no longer fits in the viewport, then with density only.
+    private static final int[] TIERS = { 1000, 10000, 100000, 1000000 };
+    private static final double[] LOAD_BUDGET_MS = { 300, 1500, 8000, 80000 };
+    private static final double[] ROUTE_BUDGET_MS = { 5, 25, 100, 1200 };
+    private static final double[] RENDER_BUDGET_MS = { 3, 15, 30, 60 };
+
+    private static final int QUERIES = 100;
+    private static final int VIEWPORTS = 500;
+    private static final int WARMUP = 20;
+    private static final double VIEW_WIDTH = 1920, VIEW_HEIGHT = 1080;
+    private static final double LABEL_MARGIN = 80; // as in App.paintGraph
+
+    public static void main(String[] args) throws IOException {
+        List<Integer> tiers = new ArrayList<>();
+        List<String> layouts = new ArrayList<>(MapGenerator.LAYOUTS);
+        double slack = 1;
+        boolean valid = true;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("--tiers")) {
+                    for (String tier : args[++i].split(",")) {
+                        tiers.add(Integer.parseInt(tier.trim()));
+                    }
+                } else if (args[i].equals("--layouts")) {
+                    layouts = Arrays.asList(args[++i].split(","));
+                } else if (args[i].equals("--slack")) {
+                    slack = Double.parseDouble(args[++i]);
+                } else {
+                    valid = false;
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            valid = false;
+        }
+        if (tiers.isEmpty()) {
+            for (int tier : TIERS) {
+                tiers.add(tier);
+            }
+        }
+        for (int tier : tiers) {
+            valid &= tierOf(tier) >= 0;
+        }
+        valid &= MapGenerator.LAYOUTS.containsAll(layouts) && slack > 0;
+        if (!valid) {
+            System.err.println("Usage: ScalabilitySuite [--tiers " + Arrays.toString(TIERS).replaceAll("[\\[\\] ]", "")
+                    + "] [--layouts grid,geometric,road] [--slack F]");
+            System.exit(2);
+        }
+
+        File directory = Files.createTempDirectory("scalability").toFile();
+        int failures = 0;
+        try {
+            System.out.printf("%-10s %8s %8s  %18s  %18s  %18s%n", "layout", "nodes", "edges",
+                    "load ms (budget)", "route p95 (budget)", "render p95 (budget)");
+            for (int tier : tiers) {
+                for (String layout : layouts) {
+                    failures += run(layout, tier, slack, directory);
+                }
+            }
+        } finally {
+            for (File file : directory.listFiles()) {
+                file.delete();
+            }
+            directory.delete();
+        }
+
+        if (failures > 0) {
+            System.out.println(failures + " measurement(s) over budget");
+            System.exit(1);
+        }
+        System.out.println("All within budget");
+    }
+
+    private static int tierOf(int nodes) {
+        for (int i = 0; i < TIERS.length; i++) {
+            if (TIERS[i] == nodes) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Prints the row for one map and returns how many of its measurements failed
+    private static int run(String layout, int nodes, double slack, File directory) throws IOException {
+        int tier = tierOf(nodes);
+        File file = new File(directory, layout + "-" + nodes + ".json");
+        Graph generated = MapGenerator.generate(layout, nodes, MapGenerator.DEFAULT_SEED);
+        int edges = generated.edgeCount();
+        MapIO.save(new MapIO.Snapshot(generated), file, MapIO.NO_PROGRESS);
+        generated = null;
+
+        // Median of three loads below the largest tier; each load replaces the last graph
+        int loads = nodes >= 1000000 ? 1 : 3;
+        double[] loadMs = new double[loads];
+        Graph graph = null;
+        for (int i = 0; i < loads; i++) {
+            graph = null;
+            System.gc();
+            long started = System.nanoTime();
+            graph = MapIO.load(file, MapIO.NO_PROGRESS);
+            graph.adjacency();
+            loadMs[i] = (System.nanoTime() - started) / 1e6;
+        }
+        file.delete();
+        Arrays.sort(loadMs);
+        double load = loadMs[loads / 2];
+
+        double route = routeP95(graph);
+        double render = renderP95(graph);
+
+        double loadBudget = LOAD_BUDGET_MS[tier] * slack;
+        double routeBudget = ROUTE_BUDGET_MS[tier] * slack;
+        double renderBudget = RENDER_BUDGET_MS[tier] * slack;
+        int failures = (load > loadBudget ? 1 : 0) + (route > routeBudget ? 1 : 0) + (render > renderBudget ? 1 : 0);
+        System.out.printf("%-10s %8d %8d  %s  %s  %s%s%n", layout, nodes, edges,
+                cell(load, loadBudget), cell(route, routeBudget), cell(render, renderBudget),
+                failures > 0 ? "  FAIL" : "");
+        return failures;
+    }
+
+    private static String cell(double value, double budget) {
+        return String.format("%8.2f (%7.1f)%s", value, budget, value > budget ? "!" : " ");
+    }
+
+    private static double routeP95(Graph graph) {
+        AdjacencyIndex index = graph.adjacency();
+        SearchWorkspace workspace = new SearchWorkspace();
+        Random random = new Random(7);
+        int n = index.nodeCount();
+        double[] times = new double[QUERIES];
+        for (int i = -WARMUP; i < QUERIES; i++) {
+            int start = random.nextInt(n), goal = random.nextInt(n);
+            long started = System.nanoTime();
+            AStarPathfinder.findPath(index, start, goal, workspace, null);
+            if (i >= 0) {
+                times[i] = (System.nanoTime() - started) / 1e6;
+            }
+        }
+        return percentile95(times);
+    }
+
+    private static double renderP95(Graph graph) {
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for (Node node : graph.getNodes()) {
+            minX = Math.min(minX, node.x);
+            minY = Math.min(minY, node.y);
+            maxX = Math.max(maxX, node.x);
+            maxY = Math.max(maxY, node.y);
+        }
+
+        List<Node> visibleNodes = new ArrayList<>();
+        List<Edge> visibleEdges = new ArrayList<>();
+        Random random = new Random(11);
+        double[] times = new double[VIEWPORTS];
+        for (int i = -WARMUP; i < VIEWPORTS; i++) {
+            double viewX = minX + random.nextDouble() * Math.max(0, maxX - minX - VIEW_WIDTH);
+            double viewY = minY + random.nextDouble() * Math.max(0, maxY - minY - VIEW_HEIGHT);
+            long started = System.nanoTime();
+            visibleEdges.clear();
+            visibleNodes.clear();
+            graph.edgesIn(viewX - LABEL_MARGIN, viewY - LABEL_MARGIN,
+                    viewX + VIEW_WIDTH + LABEL_MARGIN, viewY + VIEW_HEIGHT + LABEL_MARGIN, visibleEdges);
+            graph.nodesIn(viewX - LABEL_MARGIN, viewY - LABEL_MARGIN,
+                    viewX + VIEW_WIDTH + LABEL_MARGIN, viewY + VIEW_HEIGHT + LABEL_MARGIN, visibleNodes);
+            if (i >= 0) {
+                times[i] = (System.nanoTime() - started) / 1e6;
+            }
+        }
+        return percentile95(times);
+    }
+
+    private static double percentile95(double[] times) {
+        double[] sorted = times.clone();
+        Arrays.sort(sorted);
+        return sorted[(int) Math.ceil(sorted.length * 0.95) - 1];
+    }
+}
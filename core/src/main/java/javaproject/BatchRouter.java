@@ -0,0 +1,315 @@
+package javaproject;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javaproject.models.AdjacencyIndex;
+import javaproject.models.Graph;
+import javaproject.models.Node;
+import javaproject.utils.AStarPathfinder;
+import javaproject.utils.ContractionHierarchy;
+import javaproject.utils.LandmarkTable;
+import javaproject.utils.MapIO;
+import javaproject.utils.SearchWorkspace;
+
+// Headless entry point for checking a map against many origin-destination
+// queries, without starting JavaFX:
+//
+//   java javaproject.BatchRouter map.json pairs.csv [results.csv]
+//        [--algorithm astar|bidirectional|alt|ch] [--threads N]
+//
+// pairs.csv holds one "start,destination" pair of node labels per line; an
+// optional "start,destination" header, blank lines and lines starting with #
+// are skipped. Queries run on all cores, each worker thread with its own
+// search workspaces, and result rows are written in input order as soon as
+// every earlier row is done. Results go to stdout when no output file is given,
+// the summary and errors to stderr.
+public class BatchRouter {
+    private static final String HEADER = "query,start,destination,status,distance,edges,nodes_expanded,latency_us";
+
+    private final AdjacencyIndex index;
+    private final String algorithm;
+    private final LandmarkTable landmarks;
+    private final ContractionHierarchy hierarchy;
+    private final ThreadLocal<SearchWorkspace[]> workspaces =
+            ThreadLocal.withInitial(() -> new SearchWorkspace[] { new SearchWorkspace(), new SearchWorkspace() });
+
+    // Rows finished ahead of an earlier one wait here until they can be written in order
+    private final Map<Integer, String> pending = new HashMap<>();
+    private int nextRow;
+    private Writer out;
+
+    // Latencies of the rows that ran a search; unknown labels and failed
+    // searches have none, so they do not pull the percentiles down
+    private final long[] latencies;
+    private final AtomicInteger searched = new AtomicInteger();
+    private final AtomicInteger found = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicLong totalExpanded = new AtomicLong();
+
+    private BatchRouter(AdjacencyIndex index, String algorithm, LandmarkTable landmarks,
+                        ContractionHierarchy hierarchy, int queryCount) {
+        this.index = index;
+        this.algorithm = algorithm;
+        this.landmarks = landmarks;
+        this.hierarchy = hierarchy;
+        this.latencies = new long[queryCount];
+    }
+
+    public static void main(String[] args) {
+        List<String> files = new ArrayList<>();
+        String algorithm = "astar";
+        int threads = Runtime.getRuntime().availableProcessors();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("--algorithm")) {
+                    algorithm = args[++i];
+                } else if (args[i].equals("--threads")) {
+                    threads = Integer.parseInt(args[++i]);
+                } else {
+                    files.add(args[i]);
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            files.clear();
+        }
+        if (files.size() < 2 || files.size() > 3 || threads < 1
+                || !Arrays.asList("astar", "bidirectional", "alt", "ch").contains(algorithm)) {
+            System.err.println("Usage: BatchRouter <map.json|map" + MapIO.BINARY_EXTENSION + "> <pairs.csv> [results.csv]"
+                    + " [--algorithm astar|bidirectional|alt|ch] [--threads N]");
+            System.exit(2);
+        }
+
+        try {
+            run(new File(files.get(0)), new File(files.get(1)), files.size() > 2 ? new File(files.get(2)) : null,
+                    algorithm, threads);
+        } catch (IOException e) {
+            System.err.println("Failed: " + e.getMessage());
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.exit(1);
+        }
+    }
+
+    private static void run(File mapFile, File pairsFile, File outputFile, String algorithm, int threads)
+            throws IOException, InterruptedException {
+        long started = System.nanoTime();
+        Graph graph = MapIO.load(mapFile, MapIO.NO_PROGRESS);
+        AdjacencyIndex index = graph.adjacency();
+        System.err.printf("Loaded %s: %d nodes, %d edges in %.0f ms%n", mapFile.getName(),
+                graph.nodeCount(), graph.getEdges().size(), (System.nanoTime() - started) / 1e6);
+
+        // Labels resolve up front, on this thread: Graph is not thread-safe
+        List<String[]> pairs = readPairs(pairsFile);
+        int[][] ids = new int[pairs.size()][];
+        for (int i = 0; i < pairs.size(); i++) {
+            Node start = graph.findNode(pairs.get(i)[0]);
+            Node dest = graph.findNode(pairs.get(i)[1]);
+            ids[i] = new int[] { start != null ? start.id : -1, dest != null ? dest.id : -1 };
+        }
+
+        LandmarkTable landmarks = null;
+        ContractionHierarchy hierarchy = null;
+        long preprocessing = System.nanoTime();
+        if (algorithm.equals("alt")) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            landmarks = LandmarkTable.compute(index, LandmarkTable.DEFAULT_LANDMARKS, pool, new AtomicBoolean());
+            pool.shutdown();
+            System.err.printf("Computed %d landmarks in %.0f ms%n", landmarks.landmarks.length,
+                    (System.nanoTime() - preprocessing) / 1e6);
+        } else if (algorithm.equals("ch")) {
+            hierarchy = ContractionHierarchy.build(index, new AtomicBoolean());
+            System.err.printf("Built contraction hierarchy in %.0f ms (%d shortcuts, %.1f MB)%n",
+                    hierarchy.buildNanos / 1e6, hierarchy.shortcuts, hierarchy.memoryBytes() / 1e6);
+        }
+
+        BatchRouter router = new BatchRouter(index, algorithm, landmarks, hierarchy, pairs.size());
+        Writer out = new BufferedWriter(new OutputStreamWriter(
+                outputFile != null ? new FileOutputStream(outputFile) : System.out, StandardCharsets.UTF_8));
+        router.out = out;
+        out.write(HEADER);
+        out.write('\n');
+
+        // Workers take the next query from a shared counter, so a slow query
+        // never leaves a thread idle behind a fixed share of the list
+        long queriesStarted = System.nanoTime();
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                for (int i = next.getAndIncrement(); i < pairs.size(); i = next.getAndIncrement()) {
+                    // Every row must reach complete(), or the rows after it are never written
+                    String line;
+                    try {
+                        line = router.solve(i, pairs.get(i), ids[i]);
+                    } catch (RuntimeException e) {
+                        System.err.println("Query " + (i + 1) + " failed:");
+                        e.printStackTrace();
+                        router.failed.incrementAndGet();
+                        line = (i + 1) + "," + csv(pairs.get(i)[0]) + "," + csv(pairs.get(i)[1]) + ",error,,,,";
+                    }
+                    router.complete(i, line);
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        long elapsed = System.nanoTime() - queriesStarted;
+        out.flush();
+        if (outputFile != null) {
+            out.close();
+        }
+        if (router.nextRow < pairs.size()) {
+            throw new IOException("Could not write all results");
+        }
+        router.printSummary(elapsed, threads);
+    }
+
+    private String solve(int row, String[] pair, int[] ids) {
+        String prefix = (row + 1) + "," + csv(pair[0]) + "," + csv(pair[1]) + ",";
+        if (ids[0] < 0 || ids[1] < 0) {
+            return prefix + (ids[0] < 0 ? "unknown_start" : "unknown_destination") + ",,,,";
+        }
+
+        SearchWorkspace[] workspace = workspaces.get();
+        long started = System.nanoTime();
+        AStarPathfinder.PathResult result;
+        switch (algorithm) {
+            case "bidirectional":
+                result = AStarPathfinder.findPathBidirectional(index, ids[0], ids[1], workspace[0], workspace[1], null);
+                break;
+            case "alt":
+                result = AStarPathfinder.findPath(index, ids[0], ids[1], workspace[0], landmarks);
+                break;
+            case "ch":
+                result = hierarchy.findPath(ids[0], ids[1], workspace[0], workspace[1]);
+                break;
+            default:
+                result = AStarPathfinder.findPath(index, ids[0], ids[1], workspace[0], null);
+        }
+        long latency = System.nanoTime() - started;
+        latencies[searched.getAndIncrement()] = latency;
+
+        boolean reached = !result.path.isEmpty();
+        if (reached) {
+            found.incrementAndGet();
+        }
+        totalExpanded.addAndGet(result.nodesExpanded);
+        return prefix + (reached ? "ok," + result.totalDistance + "," + result.edges.size() : "no_path,,")
+                + "," + result.nodesExpanded + "," + String.format("%.1f", latency / 1e3);
+    }
+
+    // Writes row, and any rows after it that were waiting on it
+    private synchronized void complete(int row, String line) {
+        pending.put(row, line);
+        try {
+            for (String ready = pending.remove(nextRow); ready != null; ready = pending.remove(nextRow)) {
+                out.write(ready);
+                out.write('\n');
+                nextRow++;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void printSummary(long elapsed, int threads) {
+        int n = searched.get();
+        long[] sorted = Arrays.copyOf(latencies, n);
+        Arrays.sort(sorted);
+        System.err.printf("%d queries (%d searched, %d with a path, %d failed) on %d threads in %.0f ms: "
+                + "%.0f searches/s%n", latencies.length, n, found.get(), failed.get(), threads, elapsed / 1e6,
+                n / (elapsed / 1e9));
+        if (n > 0) {
+            System.err.printf("latency p50 %.1f us, p95 %.1f us, p99 %.1f us, max %.1f us; %.0f nodes expanded per search%n",
+                    sorted[n / 2] / 1e3, sorted[(int) (n * 0.95)] / 1e3, sorted[(int) (n * 0.99)] / 1e3,
+                    sorted[n - 1] / 1e3, totalExpanded.get() / (double) n);
+        }
+    }
+
+    private static List<String[]> readPairs(File file) throws IOException {
+        List<String[]> pairs = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+            boolean first = true;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.trim().isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                List<String> fields = parseCsvLine(line);
+                if (fields.size() != 2) {
+                    throw new IOException(file.getName() + ":" + lineNumber + ": expected 2 fields, found " + fields.size());
+                }
+                // A header may follow leading comments
+                boolean header = first && fields.get(0).equalsIgnoreCase("start")
+                        && fields.get(1).equalsIgnoreCase("destination");
+                first = false;
+                if (header) {
+                    continue;
+                }
+                pairs.add(fields.toArray(new String[0]));
+            }
+        }
+        return pairs;
+    }
+
+    // Comma-separated fields; a field in double quotes may hold commas and "" for a quote
+    private static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static String csv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,59 @@
+package javaproject.models;
+
+import java.util.List;
+
+// Compressed sparse row adjacency: the neighbours of node v are
+// targets[offsets[v]] .. targets[offsets[v + 1] - 1], reached via edgeIds[i]
+// at cost weights[i]. Built from one version of the graph and never changed
+// afterwards, so the arrays can be read from background threads.
+public class AdjacencyIndex {
+    public final Node[] nodes;
+    public final Edge[] edges;
+    public final int[] offsets;
+    public final int[] targets;
+    public final int[] edgeIds;
+    public final double[] weights; // unscaled edge length per slot
+    public final double[] lengths; // unscaled edge length per edge id
+    public final double[] x, y;    // node coordinates, for heuristics
+
+    AdjacencyIndex(List<Node> nodeList, List<Edge> edgeList, int[][] incident, int[] degree) {
+        int n = nodeList.size();
+        nodes = nodeList.toArray(new Node[0]);
+        edges = edgeList.toArray(new Edge[0]);
+        offsets = new int[n + 1];
+        x = new double[n];
+        y = new double[n];
+        for (int v = 0; v < n; v++) {
+            offsets[v + 1] = offsets[v] + degree[v];
+            x[v] = nodes[v].x;
+            y[v] = nodes[v].y;
+        }
+
+        lengths = new double[edges.length];
+        for (int e = 0; e < edges.length; e++) {
+            lengths[e] = edges[e].getRawLength();
+        }
+
+        targets = new int[offsets[n]];
+        edgeIds = new int[offsets[n]];
+        weights = new double[offsets[n]];
+        for (int v = 0; v < n; v++) {
+            int slot = offsets[v];
+            for (int i = 0; i < degree[v]; i++) {
+                Edge edge = edges[incident[v][i]];
+                targets[slot] = edge.node1.id == v ? edge.node2.id : edge.node1.id;
+                edgeIds[slot] = edge.id;
+                weights[slot] = lengths[edge.id];
+                slot++;
+            }
+        }
+    }
+
+    public int nodeCount() {
+        return nodes.length;
+    }
+
+    public int degree(int v) {
+        return offsets[v + 1] - offsets[v];
+    }
+}
@@ -2,9 +2,16 @@ package javaproject.models;
 
 public class ControlPoint {
     public double x, y;
+    public int version; // bumped by moveTo
 
     public ControlPoint(double x, double y) {
         this.x = x;
         this.y = y;
     }
+
+    public void moveTo(double x, double y) {
+        this.x = x;
+        this.y = y;
+        version++;
+    }
 }
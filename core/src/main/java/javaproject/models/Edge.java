@@ -0,0 +1,68 @@
+package javaproject.models;
+
+import javaproject.utils.MathUtils;
+
+public class Edge {
+    public Node node1, node2;
+    public boolean curved;
+    public ControlPoint controlPoint;
+    public int id = -1; // position in the owning Graph
+    public boolean onSolutionPath; // highlighted as part of the current solution
+
+    // Unscaled pixel length and the geometry it was computed from. Nodes and
+    // control points count their moves in version, so comparing the recorded
+    // versions tells whether the length is stale without redoing the math.
+    private double rawLength = -1;
+    private int node1Version, node2Version, controlVersion;
+    private Node cachedNode1, cachedNode2;
+    private ControlPoint cachedControl;
+    private boolean cachedCurved;
+
+    public Edge(Node node1, Node node2, boolean curved, ControlPoint controlPoint) {
+        this.node1 = node1;
+        this.node2 = node2;
+        this.curved = curved;
+        this.controlPoint = controlPoint;
+    }
+
+    public double getLength(double scaleRatio) {
+        return getRawLength() * scaleRatio;
+    }
+
+    // Recomputed only after an endpoint or the control point has moved
+    public double getRawLength() {
+        if (rawLength < 0 || isStale()) {
+            if (curved && controlPoint != null) {
+                rawLength = MathUtils.calculateCurveLength(node1, controlPoint, node2, 1.0);
+            } else {
+                rawLength = MathUtils.calculateDistance(node1, node2, 1.0);
+            }
+            stamp();
+        }
+        return rawLength;
+    }
+
+    // Seeds the cache with a length computed earlier for the current geometry,
+    // e.g. one stored alongside the map
+    public void primeRawLength(double length) {
+        rawLength = length;
+        stamp();
+    }
+
+    private void stamp() {
+        cachedNode1 = node1;
+        cachedNode2 = node2;
+        cachedControl = controlPoint;
+        cachedCurved = curved;
+        node1Version = node1.version;
+        node2Version = node2.version;
+        controlVersion = controlPoint != null ? controlPoint.version : 0;
+    }
+
+    private boolean isStale() {
+        return node1 != cachedNode1 || node2 != cachedNode2
+                || node1.version != node1Version || node2.version != node2Version
+                || curved != cachedCurved || controlPoint != cachedControl
+                || (controlPoint != null && controlPoint.version != controlVersion);
+    }
+}
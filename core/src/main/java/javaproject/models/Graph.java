@@ -0,0 +1,347 @@
+package javaproject.models;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javaproject.utils.SpatialIndex;
+
+public class Graph {
+    private static final int[] NO_EDGES = new int[0];
+
+    private final List<Node> nodes = new ArrayList<>();
+    private final List<Edge> edges = new ArrayList<>();
+    private final List<Node> nodesView = Collections.unmodifiableList(nodes);
+    private final List<Edge> edgesView = Collections.unmodifiableList(edges);
+
+    // Incident edge ids per node id, kept up to date on every add/remove
+    private int[][] incident = new int[16][];
+    private int[] degree = new int[16];
+
+    // Grid over node positions and edge bounding boxes for canvas hit-testing
+    private final SpatialIndex spatialIndex = new SpatialIndex(64);
+
+    private final List<GraphListener> listeners = new ArrayList<>();
+
+    // Nodes by label; labels need not be unique
+    private final Map<String, List<Node>> byLabel = new HashMap<>();
+
+    private int version; // bumped on every structural change
+    private int geometryVersion; // bumped when a node or control point moves
+    private int modCount; // bumped on every change of any kind, renames included
+    private AdjacencyIndex index;
+    private int indexVersion = -1;
+    private int indexGeometryVersion = -1;
+
+    public List<Node> getNodes() {
+        return nodesView;
+    }
+
+    public List<Edge> getEdges() {
+        return edgesView;
+    }
+
+    public int nodeCount() {
+        return nodes.size();
+    }
+
+    public int edgeCount() {
+        return edges.size();
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public int getGeometryVersion() {
+        return geometryVersion;
+    }
+
+    public int getModCount() {
+        return modCount;
+    }
+
+    public boolean contains(Node node) {
+        return node.id >= 0 && node.id < nodes.size() && nodes.get(node.id) == node;
+    }
+
+    public boolean contains(Edge edge) {
+        return edge.id >= 0 && edge.id < edges.size() && edges.get(edge.id) == edge;
+    }
+
+    public void addListener(GraphListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(GraphListener listener) {
+        listeners.remove(listener);
+    }
+
+    public void addNode(Node node) {
+        int id = nodes.size();
+        if (id == degree.length) {
+            int capacity = id * 2;
+            incident = Arrays.copyOf(incident, capacity);
+            degree = Arrays.copyOf(degree, capacity);
+        }
+        node.id = id;
+        nodes.add(node);
+        incident[id] = NO_EDGES;
+        degree[id] = 0;
+        indexLabel(node);
+        spatialIndex.insertNode(node);
+        version++;
+        modCount++;
+        for (GraphListener listener : listeners) {
+            listener.nodeAdded(node);
+        }
+    }
+
+    public void addEdge(Edge edge) {
+        int id = edges.size();
+        edge.id = id;
+        edges.add(edge);
+        attach(edge.node1.id, id);
+        if (edge.node2 != edge.node1) {
+            attach(edge.node2.id, id);
+        }
+        spatialIndex.insertEdge(edge);
+        version++;
+        modCount++;
+        for (GraphListener listener : listeners) {
+            listener.edgeAdded(edge);
+        }
+    }
+
+    // Removal swaps the last edge into the freed slot so ids stay dense
+    public void removeEdge(Edge edge) {
+        if (!contains(edge)) {
+            return;
+        }
+        int id = edge.id;
+        spatialIndex.removeEdge(edge);
+        detach(edge.node1.id, id);
+        if (edge.node2 != edge.node1) {
+            detach(edge.node2.id, id);
+        }
+
+        int last = edges.size() - 1;
+        if (id != last) {
+            Edge moved = edges.get(last);
+            edges.set(id, moved);
+            renumber(moved.node1.id, last, id);
+            if (moved.node2 != moved.node1) {
+                renumber(moved.node2.id, last, id);
+            }
+            moved.id = id;
+        }
+        edges.remove(last);
+        edge.id = -1;
+        version++;
+        modCount++;
+        for (GraphListener listener : listeners) {
+            listener.edgeRemoved(edge, id);
+        }
+    }
+
+    // Removes the node together with its incident edges, in O(degree)
+    public void removeNode(Node node) {
+        if (!contains(node)) {
+            return;
+        }
+        while (degree[node.id] > 0) {
+            removeEdge(edges.get(incident[node.id][degree[node.id] - 1]));
+        }
+
+        int id = node.id;
+        unindexLabel(node);
+        spatialIndex.removeNode(node);
+        int last = nodes.size() - 1;
+        if (id != last) {
+            Node moved = nodes.get(last);
+            nodes.set(id, moved);
+            incident[id] = incident[last];
+            degree[id] = degree[last];
+            moved.id = id;
+        }
+        incident[last] = null;
+        degree[last] = 0;
+        nodes.remove(last);
+        node.id = -1;
+        version++;
+        modCount++;
+        for (GraphListener listener : listeners) {
+            listener.nodeRemoved(node, id);
+        }
+    }
+
+    public void clear() {
+        for (Node node : nodes) {
+            node.id = -1;
+        }
+        for (Edge edge : edges) {
+            edge.id = -1;
+        }
+        nodes.clear();
+        edges.clear();
+        Arrays.fill(incident, null);
+        Arrays.fill(degree, 0);
+        byLabel.clear();
+        spatialIndex.clear();
+        version++;
+        modCount++;
+        for (GraphListener listener : listeners) {
+            listener.graphReset();
+        }
+    }
+
+    // Moves the node and re-indexes it and its incident edges, in O(degree)
+    public void moveNode(Node node, double x, double y) {
+        double oldX = node.x;
+        double oldY = node.y;
+        node.moveTo(x, y);
+        if (contains(node)) {
+            geometryVersion++;
+            modCount++;
+            spatialIndex.moveNode(node, oldX, oldY);
+            for (int i = 0; i < degree[node.id]; i++) {
+                spatialIndex.updateEdge(edges.get(incident[node.id][i]));
+            }
+            fireNodeChanged(node);
+        }
+    }
+
+    public void moveControlPoint(Edge edge, double x, double y) {
+        edge.controlPoint.moveTo(x, y);
+        if (contains(edge)) {
+            geometryVersion++;
+            modCount++;
+            spatialIndex.updateEdge(edge);
+            for (GraphListener listener : listeners) {
+                listener.edgeChanged(edge);
+            }
+        }
+    }
+
+    public void renameNode(Node node, String label, boolean isSpecial) {
+        boolean member = contains(node);
+        if (member) {
+            unindexLabel(node);
+        }
+        node.label = label;
+        node.isSpecial = isSpecial;
+        if (member) {
+            indexLabel(node);
+            modCount++;
+            fireNodeChanged(node);
+        }
+    }
+
+    // First node added with this label, preferring special nodes; null if none
+    public Node findNode(String label) {
+        List<Node> matches = byLabel.get(label);
+        if (matches == null) {
+            return null;
+        }
+        for (Node node : matches) {
+            if (node.isSpecial) {
+                return node;
+            }
+        }
+        return matches.get(0);
+    }
+
+    public Node nodeAt(double x, double y, double radius) {
+        return spatialIndex.nodeAt(x, y, radius);
+    }
+
+    public Edge edgeAt(double x, double y, double tolerance) {
+        return spatialIndex.edgeAt(x, y, tolerance);
+    }
+
+    public void nodesIn(double minX, double minY, double maxX, double maxY, List<Node> out) {
+        spatialIndex.queryNodes(minX, minY, maxX, maxY, out);
+    }
+
+    public void edgesIn(double minX, double minY, double maxX, double maxY, List<Edge> out) {
+        spatialIndex.queryEdges(minX, minY, maxX, maxY, out);
+    }
+
+    public List<Edge> incidentEdges(Node node) {
+        List<Edge> result = new ArrayList<>(degree[node.id]);
+        for (int i = 0; i < degree[node.id]; i++) {
+            result.add(edges.get(incident[node.id][i]));
+        }
+        return result;
+    }
+
+    // Compact CSR view of the current graph with edge weights, rebuilt lazily
+    // after structural or geometry changes. The same instance is returned
+    // until then, so identity tells whether a result computed on it is current.
+    public AdjacencyIndex adjacency() {
+        if (index == null || indexVersion != version || indexGeometryVersion != geometryVersion) {
+            index = new AdjacencyIndex(nodes, edges, incident, degree);
+            indexVersion = version;
+            indexGeometryVersion = geometryVersion;
+        }
+        return index;
+    }
+
+    // The node's incident edges are reported too, their rows show its label and their lengths
+    private void fireNodeChanged(Node node) {
+        for (GraphListener listener : listeners) {
+            listener.nodeChanged(node);
+            for (int i = 0; i < degree[node.id]; i++) {
+                listener.edgeChanged(edges.get(incident[node.id][i]));
+            }
+        }
+    }
+
+    private void indexLabel(Node node) {
+        byLabel.computeIfAbsent(node.label, label -> new ArrayList<>(1)).add(node);
+    }
+
+    private void unindexLabel(Node node) {
+        List<Node> matches = byLabel.get(node.label);
+        if (matches != null) {
+            matches.remove(node);
+            if (matches.isEmpty()) {
+                byLabel.remove(node.label);
+            }
+        }
+    }
+
+    private void attach(int nodeId, int edgeId) {
+        int[] row = incident[nodeId];
+        if (degree[nodeId] == row.length) {
+            row = Arrays.copyOf(row, Math.max(4, row.length * 2));
+            incident[nodeId] = row;
+        }
+        row[degree[nodeId]++] = edgeId;
+    }
+
+    private void detach(int nodeId, int edgeId) {
+        int[] row = incident[nodeId];
+        int n = degree[nodeId];
+        for (int i = 0; i < n; i++) {
+            if (row[i] == edgeId) {
+                row[i] = row[n - 1];
+                degree[nodeId] = n - 1;
+                return;
+            }
+        }
+    }
+
+    private void renumber(int nodeId, int oldEdgeId, int newEdgeId) {
+        int[] row = incident[nodeId];
+        for (int i = 0; i < degree[nodeId]; i++) {
+            if (row[i] == oldEdgeId) {
+                row[i] = newEdgeId;
+                return;
+            }
+        }
+    }
+}
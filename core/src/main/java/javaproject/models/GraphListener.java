@@ -0,0 +1,30 @@
+package javaproject.models;
+
+// Notified by Graph after every change. Removal swaps the last node or edge
+// into the freed index, so removed events carry that index: afterwards the
+// element there (if any) is the one that used to be last.
+public interface GraphListener {
+    default void nodeAdded(Node node) {
+    }
+
+    default void nodeRemoved(Node node, int index) {
+    }
+
+    // Moved, renamed or special flag changed
+    default void nodeChanged(Node node) {
+    }
+
+    default void edgeAdded(Edge edge) {
+    }
+
+    default void edgeRemoved(Edge edge, int index) {
+    }
+
+    // Geometry or an endpoint label changed
+    default void edgeChanged(Edge edge) {
+    }
+
+    // Cleared; listeners should re-read everything
+    default void graphReset() {
+    }
+}
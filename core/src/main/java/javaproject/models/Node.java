@@ -4,6 +4,8 @@ public class Node {
     public double x, y;
     public String label;
     public boolean isSpecial;
+    public int id = -1; // position in the owning Graph
+    public int version; // bumped by moveTo
 
     public Node(double x, double y, String label, Boolean isSpecial) {
         this.x = x;
@@ -11,4 +13,10 @@ public class Node {
         this.label = label;
         this.isSpecial = isSpecial;
     }
+
+    public void moveTo(double x, double y) {
+        this.x = x;
+        this.y = y;
+        version++;
+    }
 }
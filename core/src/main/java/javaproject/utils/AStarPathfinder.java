@@ -0,0 +1,205 @@
+package javaproject.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javaproject.models.AdjacencyIndex;
+import javaproject.models.Edge;
+import javaproject.models.Graph;
+import javaproject.models.Node;
+
+public class AStarPathfinder {
+    
+    public static class PathResult {
+        public final List<Node> path;
+        public final List<Edge> edges; // edges[i] joins path[i] and path[i + 1]
+        public final double totalDistance;
+        public final int nodesExpanded;
+        public final int edgesRelaxed; // arcs scanned out of expanded nodes
+        public final int heapOperations; // open set inserts, key changes and polls
+
+        public PathResult(List<Node> path, List<Edge> edges, double totalDistance, int nodesExpanded) {
+            this(path, edges, totalDistance, nodesExpanded, 0, 0);
+        }
+
+        public PathResult(List<Node> path, List<Edge> edges, double totalDistance, int nodesExpanded,
+                          int edgesRelaxed, int heapOperations) {
+            this.path = path;
+            this.edges = edges;
+            this.totalDistance = totalDistance;
+            this.nodesExpanded = nodesExpanded;
+            this.edgesRelaxed = edgesRelaxed;
+            this.heapOperations = heapOperations;
+        }
+    }
+
+    public static PathResult findPath(Graph graph, Node start, Node goal) {
+        return findPath(graph, start, goal, new SearchWorkspace());
+    }
+
+    // Reusing the workspace across queries keeps the search itself allocation-free
+    public static PathResult findPath(Graph graph, Node start, Node goal, SearchWorkspace workspace) {
+        return findPath(graph.adjacency(), start.id, goal.id, workspace, null);
+    }
+
+    // Searches one adjacency snapshot by node id, so it can run off the FX
+    // thread while the graph changes. With landmarks built on the same
+    // snapshot the heuristic also uses their bound (ALT); stale or missing
+    // landmarks leave it Euclidean. Throws CancellationException if the
+    // thread is interrupted.
+    public static PathResult findPath(AdjacencyIndex adjacency, int start, int goal, SearchWorkspace workspace,
+                                      LandmarkTable landmarks) {
+        // Implementation of A* algorithm
+        if (landmarks != null && landmarks.index != adjacency) {
+            landmarks = null;
+        }
+        workspace.reset(adjacency.nodeCount());
+        IndexedMinHeap openSet = workspace.openSet; // Keyed by node id, ordered by fScore
+        
+        workspace.update(start, 0.0, -1, -1);
+        openSet.insert(start, heuristic(adjacency, start, goal, landmarks));
+        int expanded = 0;
+        int relaxed = 0;
+        
+        while (!openSet.isEmpty()) {
+            int current = openSet.poll();
+            workspace.checkpoint(++expanded);
+            
+            if (current == goal) {
+                return reconstructPath(adjacency, workspace, current, expanded, relaxed);
+            }
+            
+            double currentG = workspace.gScore(current);
+            relaxed += adjacency.offsets[current + 1] - adjacency.offsets[current];
+            for (int i = adjacency.offsets[current]; i < adjacency.offsets[current + 1]; i++) {
+                int neighbor = adjacency.targets[i];
+                double tentativeGScore = currentG + adjacency.weights[i]; // unscaled, to stay consistent with the heuristic
+                
+                if (tentativeGScore < workspace.gScore(neighbor)) {
+                    workspace.update(neighbor, tentativeGScore, current, adjacency.edgeIds[i]);
+                    openSet.insertOrDecrease(neighbor, tentativeGScore
+                            + heuristic(adjacency, neighbor, goal, landmarks));
+                }
+            }
+        }
+        
+        return new PathResult(Collections.emptyList(), Collections.emptyList(), 0, expanded,
+                relaxed, openSet.operations()); // No path found
+    }
+    
+    // Bidirectional A*: a forward search from start and a backward one from
+    // goal, both ordered by the average potential p(v) = (h_goal(v) - h_start(v)) / 2
+    // (negated going backwards). With consistent h both sides then see the same
+    // non-negative reduced edge costs, so this is bidirectional Dijkstra on the
+    // reduced graph and may stop once the two smallest keys add up to the best
+    // meeting cost. Path costs are the same as findPath's.
+    public static PathResult findPathBidirectional(AdjacencyIndex adjacency, int start, int goal,
+                                                   SearchWorkspace forward, SearchWorkspace backward,
+                                                   LandmarkTable landmarks) {
+        if (landmarks != null && landmarks.index != adjacency) {
+            landmarks = null;
+        }
+        forward.reset(adjacency.nodeCount());
+        backward.reset(adjacency.nodeCount());
+        forward.update(start, 0.0, -1, -1);
+        forward.openSet.insert(start, potential(adjacency, start, start, goal, landmarks));
+        backward.update(goal, 0.0, -1, -1);
+        backward.openSet.insert(goal, -potential(adjacency, goal, start, goal, landmarks));
+
+        double best = start == goal ? 0.0 : Double.POSITIVE_INFINITY;
+        int meetForward = start, meetBackward = start, meetEdge = -1; // best path: start..meetForward, meetEdge, meetBackward..goal
+        int expanded = 0;
+        int relaxed = 0;
+        while (!forward.openSet.isEmpty() && !backward.openSet.isEmpty()
+                && forward.openSet.peekKey() + backward.openSet.peekKey() < best) {
+            boolean fromStart = forward.openSet.peekKey() <= backward.openSet.peekKey();
+            SearchWorkspace side = fromStart ? forward : backward;
+            SearchWorkspace other = fromStart ? backward : forward;
+            double sign = fromStart ? 1 : -1;
+
+            int current = side.openSet.poll();
+            forward.checkpoint(++expanded);
+            double currentG = side.gScore(current);
+            relaxed += adjacency.offsets[current + 1] - adjacency.offsets[current];
+            for (int i = adjacency.offsets[current]; i < adjacency.offsets[current + 1]; i++) {
+                int neighbor = adjacency.targets[i];
+                double g = currentG + adjacency.weights[i];
+                if (g < side.gScore(neighbor)) {
+                    side.update(neighbor, g, current, adjacency.edgeIds[i]);
+                    side.openSet.insertOrDecrease(neighbor,
+                            g + sign * potential(adjacency, neighbor, start, goal, landmarks));
+                }
+                double through = g + other.gScore(neighbor);
+                if (through < best) {
+                    best = through;
+                    meetForward = fromStart ? current : neighbor;
+                    meetBackward = fromStart ? neighbor : current;
+                    meetEdge = adjacency.edgeIds[i];
+                }
+            }
+        }
+
+        int heapOperations = forward.openSet.operations() + backward.openSet.operations();
+        if (best == Double.POSITIVE_INFINITY) {
+            return new PathResult(Collections.emptyList(), Collections.emptyList(), 0, expanded,
+                    relaxed, heapOperations);
+        }
+        List<Node> path = new ArrayList<>();
+        List<Edge> edges = new ArrayList<>();
+        for (int node = meetForward; node >= 0; node = forward.parentNode(node)) {
+            path.add(adjacency.nodes[node]);
+            if (forward.parentEdge(node) >= 0) {
+                edges.add(adjacency.edges[forward.parentEdge(node)]);
+            }
+        }
+        Collections.reverse(path);
+        Collections.reverse(edges);
+        if (meetEdge >= 0) {
+            edges.add(adjacency.edges[meetEdge]);
+            for (int node = meetBackward; node >= 0; node = backward.parentNode(node)) {
+                path.add(adjacency.nodes[node]);
+                if (backward.parentEdge(node) >= 0) {
+                    edges.add(adjacency.edges[backward.parentEdge(node)]);
+                }
+            }
+        }
+        // Summed from the start, as findPath accumulates it
+        double total = 0;
+        for (Edge edge : edges) {
+            total += adjacency.lengths[edge.id];
+        }
+        return new PathResult(path, edges, total, expanded, relaxed, heapOperations);
+    }
+
+    private static double potential(AdjacencyIndex adjacency, int node, int start, int goal,
+                                    LandmarkTable landmarks) {
+        return (heuristic(adjacency, node, goal, landmarks) - heuristic(adjacency, node, start, landmarks)) / 2;
+    }
+
+    // Walks the parent links back from the goal; each step also records the edge it came through
+    private static PathResult reconstructPath(AdjacencyIndex adjacency, SearchWorkspace workspace,
+                                              int goal, int expanded, int relaxed) {
+        List<Node> path = new ArrayList<>();
+        List<Edge> edges = new ArrayList<>();
+        for (int node = goal; node >= 0; node = workspace.parentNode(node)) {
+            path.add(adjacency.nodes[node]);
+            if (workspace.parentEdge(node) >= 0) {
+                edges.add(adjacency.edges[workspace.parentEdge(node)]);
+            }
+        }
+        Collections.reverse(path);
+        Collections.reverse(edges);
+        return new PathResult(path, edges, workspace.gScore(goal), expanded, relaxed,
+                workspace.openSet.operations());
+    }
+    
+    private static double heuristic(AdjacencyIndex adjacency, int node, int b, LandmarkTable landmarks) {
+        // Euclidean distance heuristic
+        double dx = adjacency.x[node] - adjacency.x[b];
+        double dy = adjacency.y[node] - adjacency.y[b];
+        double euclidean = Math.sqrt(dx * dx + dy * dy);
+        // Both bounds are consistent, and so is their maximum
+        return landmarks == null ? euclidean : Math.max(euclidean, landmarks.lowerBound(node, b));
+    }
+}
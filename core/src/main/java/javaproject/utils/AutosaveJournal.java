@@ -0,0 +1,620 @@
+package javaproject.utils;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import javaproject.models.ControlPoint;
+import javaproject.models.Edge;
+import javaproject.models.Graph;
+import javaproject.models.GraphListener;
+import javaproject.models.Node;
+
+// Crash-safe autosave that costs O(changes) per edit instead of O(map) per
+// save. Every graph event is encoded on the graph's thread into a small
+// record; a background thread appends the records to a journal file a few
+// times a second and fsyncs it. Once the journal has grown enough, or some
+// time has passed, the writer compacts it: it rebuilds the map from its own
+// files, writes that as a snapshot in the binary map format and starts a new
+// journal from it. The editor never waits for a snapshot.
+//
+// Files are <base>.<generation>.mapbin and <base>.<generation>.journal. A
+// journal starts with a header saying what it applies to: an empty graph, the
+// map file it was opened from (recorded with its length and modification time,
+// so a file changed since is not replayed onto), or the snapshot of the same
+// generation, committed before the header is written. Records are framed by
+// length and CRC, so a torn write at the end is detected and dropped. Recovery
+// takes the newest generation with a usable header, loads what it applies to
+// and replays the journal.
+//
+// Records use node and edge ids. Graph removal swaps the last element into
+// the freed slot, and a node removal is reported as its edge removals followed
+// by the node's, so replaying the events one by one reproduces the same ids.
+public class AutosaveJournal implements GraphListener {
+    private static final int FLUSH_MILLIS = 250;
+    private static final long COMPACT_BYTES = 4L << 20;
+    private static final long COMPACT_MILLIS = 5 * 60 * 1000;
+    private static final String SNAPSHOT_SUFFIX = MapIO.BINARY_EXTENSION;
+    private static final String JOURNAL_SUFFIX = ".journal";
+
+    private static final int JOURNAL_MAGIC = 0x4A524E4C; // "JRNL"
+    // What a journal applies to
+    private static final byte BASE_EMPTY = 0;
+    private static final byte BASE_FILE = 1; // the map file, unchanged since it was loaded or saved
+    private static final byte BASE_SNAPSHOT = 2; // unsaved state, in the generation's snapshot
+
+    private static final byte NODE_ADDED = 1;
+    private static final byte NODE_REMOVED = 2;
+    private static final byte NODE_CHANGED = 3;
+    private static final byte EDGE_ADDED = 4;
+    private static final byte EDGE_REMOVED = 5;
+    private static final byte EDGE_CHANGED = 6;
+    private static final byte CLEARED = 7;
+
+    private final Graph graph;
+    private final File base;
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "autosave");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Framed records not yet handed to the writer
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+
+    // Encoding scratch, only touched by the graph's thread
+    private final ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+    private final DataOutputStream record = new DataOutputStream(recordBytes);
+    private final CRC32 crc = new CRC32();
+
+    // Writer thread only
+    private FileChannel journal;
+    private int generation;
+    private long bytesSinceCompaction;
+    private long compactedAt;
+
+    // Starts journaling the graph; the older autosave of the base is replaced
+    // once the new one is on disk. source is the file the graph was just loaded
+    // from or saved to, or null if the graph has unsaved changes, in which case
+    // it is copied here and written as the first snapshot.
+    public AutosaveJournal(Graph graph, File base, File source) {
+        this.graph = graph;
+        this.base = base;
+        base.getAbsoluteFile().getParentFile().mkdirs();
+        Header header;
+        MapIO.Snapshot snapshot = null;
+        int first = latestGeneration(base) + 1;
+        if (graph.nodeCount() == 0) {
+            header = new Header(first, BASE_EMPTY, null, 0, 0);
+        } else if (source != null) {
+            File file = source.getAbsoluteFile();
+            header = new Header(first, BASE_FILE, file.getPath(), file.length(), file.lastModified());
+        } else {
+            header = new Header(first, BASE_SNAPSHOT, null, 0, 0);
+            snapshot = new MapIO.Snapshot(graph);
+        }
+        MapIO.Snapshot initial = snapshot;
+        graph.addListener(this);
+        writer.execute(() -> {
+            try {
+                begin(header, initial);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        });
+        writer.scheduleWithFixedDelay(this::flushAndCompact, FLUSH_MILLIS, FLUSH_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public AutosaveJournal(Graph graph, File base) {
+        this(graph, base, null);
+    }
+
+    // Stops listening and waits until everything recorded so far is on disk
+    public void close() {
+        graph.removeListener(this);
+        writer.execute(() -> {
+            flush();
+            closeJournal();
+        });
+        writer.shutdown();
+        try {
+            writer.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Asks the writer to fold the journal into a new snapshot now instead of when it is due
+    public void compact() {
+        writer.execute(() -> {
+            flush();
+            compactNow();
+        });
+    }
+
+    // Deletes every autosave file of the base, e.g. once the map has been saved for real
+    public static void delete(File base) {
+        for (File file : files(base)) {
+            file.delete();
+        }
+    }
+
+    // Whether the newest recoverable state differs from the map file it started from
+    public static boolean hasChanges(File base) {
+        int generation = recoverableGeneration(base);
+        if (generation < 0) {
+            return false;
+        }
+        File journal = file(base, generation, JOURNAL_SUFFIX);
+        Header header = readHeader(journal);
+        return header != null && (header.kind == BASE_SNAPSHOT || journal.length() > header.bytes);
+    }
+
+    // The last autosaved state, or null if there is none
+    public static Graph recover(File base, MapIO.Progress progress) throws IOException {
+        int generation = recoverableGeneration(base);
+        return generation < 0 ? null : rebuild(base, generation, progress);
+    }
+
+    // Graph events, on the graph's thread
+
+    @Override
+    public void nodeAdded(Node node) {
+        try {
+            record.writeByte(NODE_ADDED);
+            record.writeDouble(node.x);
+            record.writeDouble(node.y);
+            record.writeBoolean(node.isSpecial);
+            writeLabel(node.label);
+        } catch (IOException e) {
+            e.printStackTrace(); // cannot happen, the stream is in memory
+        }
+        commit();
+    }
+
+    @Override
+    public void nodeRemoved(Node node, int index) {
+        try {
+            record.writeByte(NODE_REMOVED);
+            record.writeInt(index);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        commit();
+    }
+
+    @Override
+    public void nodeChanged(Node node) {
+        try {
+            record.writeByte(NODE_CHANGED);
+            record.writeInt(node.id);
+            record.writeDouble(node.x);
+            record.writeDouble(node.y);
+            record.writeBoolean(node.isSpecial);
+            writeLabel(node.label);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        commit();
+    }
+
+    @Override
+    public void edgeAdded(Edge edge) {
+        boolean hasControl = edge.controlPoint != null;
+        try {
+            record.writeByte(EDGE_ADDED);
+            record.writeInt(edge.node1.id);
+            record.writeInt(edge.node2.id);
+            record.writeBoolean(edge.curved);
+            record.writeBoolean(hasControl);
+            record.writeDouble(hasControl ? edge.controlPoint.x : 0);
+            record.writeDouble(hasControl ? edge.controlPoint.y : 0);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        commit();
+    }
+
+    @Override
+    public void edgeRemoved(Edge edge, int index) {
+        try {
+            record.writeByte(EDGE_REMOVED);
+            record.writeInt(index);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        commit();
+    }
+
+    // Also reported for the incident edges of a node that moved; only the control point is stored
+    @Override
+    public void edgeChanged(Edge edge) {
+        if (edge.controlPoint == null) {
+            return;
+        }
+        try {
+            record.writeByte(EDGE_CHANGED);
+            record.writeInt(edge.id);
+            record.writeDouble(edge.controlPoint.x);
+            record.writeDouble(edge.controlPoint.y);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        commit();
+    }
+
+    @Override
+    public void graphReset() {
+        try {
+            record.writeByte(CLEARED);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        commit();
+    }
+
+    private void writeLabel(String label) throws IOException {
+        byte[] bytes = (label != null ? label : "").getBytes(StandardCharsets.UTF_8);
+        record.writeInt(bytes.length);
+        record.write(bytes);
+    }
+
+    // Frames the encoded record as length, CRC, payload and queues it for the writer
+    private void commit() {
+        byte[] payload = recordBytes.toByteArray();
+        recordBytes.reset();
+        crc.reset();
+        crc.update(payload, 0, payload.length);
+        synchronized (pending) {
+            writeInt(pending, payload.length);
+            writeInt(pending, (int) crc.getValue());
+            pending.write(payload, 0, payload.length);
+        }
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int value) {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+
+    // Writer side
+
+    private void flushAndCompact() {
+        flush();
+        if (bytesSinceCompaction > COMPACT_BYTES
+                || bytesSinceCompaction > 0 && System.currentTimeMillis() - compactedAt > COMPACT_MILLIS) {
+            compactNow();
+        }
+    }
+
+    private void flush() {
+        byte[] bytes;
+        synchronized (pending) {
+            if (pending.size() == 0) {
+                return;
+            }
+            bytes = pending.toByteArray();
+            pending.reset();
+        }
+        if (journal == null) {
+            return; // the journal could not be started; the error was reported then
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                journal.write(buffer);
+            }
+            journal.force(false);
+            bytesSinceCompaction += bytes.length;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Replays the current generation into a graph of its own and starts the
+    // next generation from it. On failure the journal carries on and
+    // compaction is retried once it is due again.
+    private void compactNow() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            Graph folded = rebuild(base, generation, MapIO.NO_PROGRESS);
+            begin(new Header(generation + 1, BASE_SNAPSHOT, null, 0, 0), new MapIO.Snapshot(folded));
+        } catch (IOException e) {
+            e.printStackTrace();
+            bytesSinceCompaction = 0;
+            compactedAt = System.currentTimeMillis();
+        }
+    }
+
+    // The snapshot is durable before the journal header that refers to it, and
+    // older generations go only once the new one is complete
+    private void begin(Header header, MapIO.Snapshot snapshot) throws IOException {
+        if (snapshot != null) {
+            File file = file(base, header.generation, SNAPSHOT_SUFFIX);
+            MapIO.save(snapshot, file, MapIO.NO_PROGRESS);
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                channel.force(true);
+            }
+        }
+        FileChannel next = FileChannel.open(file(base, header.generation, JOURNAL_SUFFIX).toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        ByteBuffer bytes = ByteBuffer.wrap(header.encode());
+        while (bytes.hasRemaining()) {
+            next.write(bytes);
+        }
+        next.force(true);
+        closeJournal();
+        journal = next;
+        generation = header.generation;
+        bytesSinceCompaction = 0;
+        compactedAt = System.currentTimeMillis();
+
+        for (File file : files(base)) {
+            if (generationOf(base, file) < generation) {
+                file.delete();
+            }
+        }
+    }
+
+    private void closeJournal() {
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            journal = null;
+        }
+    }
+
+    // Files and recovery
+
+    private static class Header {
+        final int generation;
+        final byte kind;
+        final String source; // BASE_FILE only, with the file's length and modification time
+        final long length, modified;
+        int bytes; // encoded size, set when read
+
+        Header(int generation, byte kind, String source, long length, long modified) {
+            this.generation = generation;
+            this.kind = kind;
+            this.source = source;
+            this.length = length;
+            this.modified = modified;
+        }
+
+        byte[] encode() throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(JOURNAL_MAGIC);
+            out.writeInt(generation);
+            out.writeByte(kind);
+            if (kind == BASE_FILE) {
+                byte[] path = source.getBytes(StandardCharsets.UTF_8);
+                out.writeLong(length);
+                out.writeLong(modified);
+                out.writeInt(path.length);
+                out.write(path);
+            }
+            return bytes.toByteArray();
+        }
+
+        // Whether what the journal applies to is still there as it was
+        boolean usable(File base) {
+            if (kind == BASE_FILE) {
+                File file = new File(source);
+                return file.isFile() && file.length() == length && file.lastModified() == modified;
+            }
+            return kind == BASE_EMPTY || kind == BASE_SNAPSHOT && file(base, generation, SNAPSHOT_SUFFIX).isFile();
+        }
+    }
+
+    // The journal's header, or null if it is missing, torn or not a journal
+    private static Header readHeader(File journal) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(journal)))) {
+            return readHeader(in);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static Header readHeader(DataInputStream in) throws IOException {
+        if (in.readInt() != JOURNAL_MAGIC) {
+            return null;
+        }
+        int generation = in.readInt();
+        byte kind = in.readByte();
+        Header header;
+        if (kind == BASE_FILE) {
+            long length = in.readLong();
+            long modified = in.readLong();
+            byte[] path = new byte[in.readInt()];
+            in.readFully(path);
+            header = new Header(generation, kind, new String(path, StandardCharsets.UTF_8), length, modified);
+            header.bytes = 9 + 20 + path.length;
+        } else if (kind == BASE_EMPTY || kind == BASE_SNAPSHOT) {
+            header = new Header(generation, kind, null, 0, 0);
+            header.bytes = 9;
+        } else {
+            return null;
+        }
+        return header;
+    }
+
+    private static File file(File base, int generation, String suffix) {
+        return new File(base.getPath() + "." + generation + suffix);
+    }
+
+    private static List<File> files(File base) {
+        List<File> result = new ArrayList<>();
+        File[] all = base.getAbsoluteFile().getParentFile().listFiles();
+        if (all != null) {
+            for (File file : all) {
+                if (generationOf(base, file) >= 0) {
+                    result.add(file);
+                }
+            }
+        }
+        return result;
+    }
+
+    // The generation in an autosave file name of this base, or -1 for any other file
+    private static int generationOf(File base, File file) {
+        String prefix = base.getName() + ".";
+        String name = file.getName();
+        String suffix = name.endsWith(JOURNAL_SUFFIX) ? JOURNAL_SUFFIX
+                : name.endsWith(SNAPSHOT_SUFFIX) ? SNAPSHOT_SUFFIX : null;
+        if (!name.startsWith(prefix) || suffix == null) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(name.substring(prefix.length(), name.length() - suffix.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static int latestGeneration(File base) {
+        int latest = 0;
+        for (File file : files(base)) {
+            latest = Math.max(latest, generationOf(base, file));
+        }
+        return latest;
+    }
+
+    // Newest generation whose journal header was written and whose base is intact
+    private static int recoverableGeneration(File base) {
+        int best = -1;
+        for (File file : files(base)) {
+            int generation = generationOf(base, file);
+            if (generation > best && file.getName().endsWith(JOURNAL_SUFFIX)) {
+                Header header = readHeader(file);
+                if (header != null && header.usable(base)) {
+                    best = generation;
+                }
+            }
+        }
+        return best;
+    }
+
+    // Loads what the generation's journal applies to and replays the journal
+    // up to its end or the first torn or corrupt record
+    private static Graph rebuild(File base, int generation, MapIO.Progress progress) throws IOException {
+        File journal = file(base, generation, JOURNAL_SUFFIX);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(journal)))) {
+            Header header = readHeader(in);
+            if (header == null || !header.usable(base)) {
+                throw new IOException("Autosave " + journal.getName() + " cannot be recovered");
+            }
+            Graph graph = header.kind == BASE_EMPTY ? new Graph()
+                    : MapIO.load(header.kind == BASE_FILE ? new File(header.source)
+                            : file(base, generation, SNAPSHOT_SUFFIX), progress);
+            CRC32 crc = new CRC32();
+            while (true) {
+                byte[] payload;
+                try {
+                    int length = in.readInt();
+                    int checksum = in.readInt();
+                    if (length < 1 || length > 1 << 20) {
+                        return graph;
+                    }
+                    payload = new byte[length];
+                    in.readFully(payload);
+                    crc.reset();
+                    crc.update(payload, 0, length);
+                    if ((int) crc.getValue() != checksum) {
+                        return graph;
+                    }
+                } catch (EOFException e) {
+                    return graph;
+                }
+                apply(graph, new DataInputStream(new ByteArrayInputStream(payload)));
+            }
+        }
+    }
+
+    private static void apply(Graph graph, DataInputStream in) throws IOException {
+        List<Node> nodes = graph.getNodes();
+        List<Edge> edges = graph.getEdges();
+        switch (in.readByte()) {
+            case NODE_ADDED: {
+                double x = in.readDouble();
+                double y = in.readDouble();
+                boolean special = in.readBoolean();
+                graph.addNode(new Node(x, y, readLabel(in), special));
+                break;
+            }
+            case NODE_REMOVED:
+                graph.removeNode(nodes.get(in.readInt()));
+                break;
+            case NODE_CHANGED: {
+                Node node = nodes.get(in.readInt());
+                double x = in.readDouble();
+                double y = in.readDouble();
+                boolean special = in.readBoolean();
+                String label = readLabel(in);
+                if (x != node.x || y != node.y) {
+                    graph.moveNode(node, x, y);
+                }
+                if (special != node.isSpecial || !label.equals(node.label)) {
+                    graph.renameNode(node, label, special);
+                }
+                break;
+            }
+            case EDGE_ADDED: {
+                Node node1 = nodes.get(in.readInt());
+                Node node2 = nodes.get(in.readInt());
+                boolean curved = in.readBoolean();
+                boolean hasControl = in.readBoolean();
+                double x = in.readDouble();
+                double y = in.readDouble();
+                graph.addEdge(new Edge(node1, node2, curved, hasControl ? new ControlPoint(x, y) : null));
+                break;
+            }
+            case EDGE_REMOVED:
+                graph.removeEdge(edges.get(in.readInt()));
+                break;
+            case EDGE_CHANGED: {
+                Edge edge = edges.get(in.readInt());
+                double x = in.readDouble();
+                double y = in.readDouble();
+                if (edge.controlPoint != null && (x != edge.controlPoint.x || y != edge.controlPoint.y)) {
+                    graph.moveControlPoint(edge, x, y);
+                }
+                break;
+            }
+            case CLEARED:
+                graph.clear();
+                break;
+            default:
+                throw new IOException("Corrupt autosave journal: unknown record type");
+        }
+    }
+
+    private static String readLabel(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,443 @@
+package javaproject.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javaproject.models.AdjacencyIndex;
+import javaproject.models.Edge;
+import javaproject.models.Node;
+
+// Contraction Hierarchies over one AdjacencyIndex snapshot. Preprocessing
+// contracts nodes one at a time in order of edge difference (shortcuts added
+// minus edges removed), adding a shortcut u-w for each pair of neighbours
+// whose only shortest path runs through the contracted node. A query is then
+// two small Dijkstra searches, from each end, that only climb to higher ranked
+// nodes. Arcs numbered below edges.length are the graph's edges; above that
+// they are shortcuts, each remembering the two arcs it replaces so that a
+// route can be unpacked back into the original Edge chain.
+public class ContractionHierarchy {
+    // Witness searches give up after settling this many nodes and add the
+    // shortcut anyway; that only costs a redundant arc, never a wrong answer
+    private static final int WITNESS_SETTLE_LIMIT = 500;
+    // Priorities only need an estimate, so their simulated contractions look less far
+    private static final int SIMULATE_SETTLE_LIMIT = 50;
+
+    public final AdjacencyIndex index;
+    private final int[] rank;
+    private final int[] upOffsets; // arcs from each node to higher ranked neighbours
+    private final int[] upTargets;
+    private final int[] upArcs;
+    private final double[] upWeights;
+
+    // Shortcut s = edges.length + i joins end1[i] and end2 through mid[i]:
+    // child1[i] runs end1-mid and child2[i] runs mid-end2
+    private final int[] end1, mid, child1, child2;
+
+    public final int shortcuts;
+    public final long buildNanos;
+
+    private ContractionHierarchy(AdjacencyIndex index, Builder builder, long buildNanos) {
+        this.index = index;
+        this.rank = builder.rank;
+        this.shortcuts = builder.shortcutCount;
+        this.end1 = Arrays.copyOf(builder.end1, shortcuts);
+        this.mid = Arrays.copyOf(builder.mid, shortcuts);
+        this.child1 = Arrays.copyOf(builder.child1, shortcuts);
+        this.child2 = Arrays.copyOf(builder.child2, shortcuts);
+        this.buildNanos = buildNanos;
+
+        int n = index.nodeCount();
+        upOffsets = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            upOffsets[v + 1] = upOffsets[v] + builder.upNode[v].length;
+        }
+        upTargets = new int[upOffsets[n]];
+        upArcs = new int[upOffsets[n]];
+        upWeights = new double[upOffsets[n]];
+        for (int v = 0; v < n; v++) {
+            System.arraycopy(builder.upNode[v], 0, upTargets, upOffsets[v], builder.upNode[v].length);
+            System.arraycopy(builder.upArc[v], 0, upArcs, upOffsets[v], builder.upArc[v].length);
+            System.arraycopy(builder.upWeight[v], 0, upWeights, upOffsets[v], builder.upWeight[v].length);
+        }
+    }
+
+    // Returns null if cancelled
+    public static ContractionHierarchy build(AdjacencyIndex index, AtomicBoolean cancelled) {
+        long started = System.nanoTime();
+        Builder builder = new Builder(index);
+        if (!builder.run(cancelled)) {
+            return null;
+        }
+        return new ContractionHierarchy(index, builder, System.nanoTime() - started);
+    }
+
+    // Approximate size of the arrays a query reads, in bytes
+    public long memoryBytes() {
+        long n = rank.length;
+        long arcs = upTargets.length;
+        return 4 * n + 4 * (n + 1) + arcs * (4 + 4 + 8) + 16L * shortcuts;
+    }
+
+    // Each side settles nodes in its own workspace; the searches stop once
+    // neither queue can improve on the best meeting point found so far
+    public AStarPathfinder.PathResult findPath(int start, int goal,
+                                               SearchWorkspace forward, SearchWorkspace backward) {
+        int n = index.nodeCount();
+        forward.reset(n);
+        backward.reset(n);
+        forward.update(start, 0.0, -1, -1);
+        forward.openSet.insert(start, 0.0);
+        backward.update(goal, 0.0, -1, -1);
+        backward.openSet.insert(goal, 0.0);
+
+        double best = Double.POSITIVE_INFINITY;
+        int meeting = -1;
+        int expanded = 0;
+        int relaxed = 0;
+        while (!forward.openSet.isEmpty() || !backward.openSet.isEmpty()) {
+            boolean fromStart = backward.openSet.isEmpty()
+                    || (!forward.openSet.isEmpty() && forward.openSet.peekKey() <= backward.openSet.peekKey());
+            SearchWorkspace side = fromStart ? forward : backward;
+            SearchWorkspace other = fromStart ? backward : forward;
+            if (side.openSet.peekKey() >= best) {
+                break;
+            }
+
+            int current = side.openSet.poll();
+            forward.checkpoint(++expanded);
+            double currentG = side.gScore(current);
+            double through = currentG + other.gScore(current);
+            if (through < best) {
+                best = through;
+                meeting = current;
+            }
+            if (stalled(side, current, currentG)) {
+                continue;
+            }
+            relaxed += upOffsets[current + 1] - upOffsets[current];
+            for (int i = upOffsets[current]; i < upOffsets[current + 1]; i++) {
+                int neighbor = upTargets[i];
+                double g = currentG + upWeights[i];
+                if (g < side.gScore(neighbor)) {
+                    side.update(neighbor, g, current, upArcs[i]);
+                    side.openSet.insertOrDecrease(neighbor, g);
+                }
+            }
+        }
+
+        int heapOperations = forward.openSet.operations() + backward.openSet.operations();
+        if (meeting < 0) {
+            return new AStarPathfinder.PathResult(Collections.emptyList(), Collections.emptyList(), 0, expanded,
+                    relaxed, heapOperations);
+        }
+        List<Edge> edges = unpack(meeting, forward, backward);
+        List<Node> path = new ArrayList<>();
+        Node node = index.nodes[start];
+        path.add(node);
+        for (Edge edge : edges) {
+            node = edge.node1 == node ? edge.node2 : edge.node1;
+            path.add(node);
+        }
+        return new AStarPathfinder.PathResult(path, edges, best, expanded, relaxed, heapOperations);
+    }
+
+    // Stall on demand: the arcs up from node also lead down into it, so if a
+    // higher node the search has reached leads into it more cheaply, node is on no
+    // shortest upward path and relaxing its arcs would only widen the search
+    private boolean stalled(SearchWorkspace side, int node, double g) {
+        for (int i = upOffsets[node]; i < upOffsets[node + 1]; i++) {
+            if (side.gScore(upTargets[i]) + upWeights[i] < g) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Arcs start..meeting come from the forward parents (read backwards) and
+    // meeting..goal from the backward parents; each is expanded in travel order
+    private List<Edge> unpack(int meeting, SearchWorkspace forward, SearchWorkspace backward) {
+        List<int[]> arcs = new ArrayList<>(); // {arc, node it is entered from}
+        for (int v = meeting; forward.parentNode(v) >= 0; v = forward.parentNode(v)) {
+            arcs.add(new int[]{forward.parentEdge(v), forward.parentNode(v)});
+        }
+        Collections.reverse(arcs);
+        for (int v = meeting; backward.parentNode(v) >= 0; v = backward.parentNode(v)) {
+            arcs.add(new int[]{backward.parentEdge(v), v});
+        }
+
+        List<Edge> edges = new ArrayList<>();
+        int edgeCount = index.edges.length;
+        int[] stack = new int[64];
+        for (int[] entry : arcs) {
+            int top = 0;
+            stack[top++] = entry[0];
+            stack[top++] = entry[1];
+            while (top > 0) {
+                int from = stack[--top];
+                int arc = stack[--top];
+                if (arc < edgeCount) {
+                    edges.add(index.edges[arc]);
+                    continue;
+                }
+                int s = arc - edgeCount;
+                if (top + 4 > stack.length) {
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                }
+                // Push the second half first so the first half is expanded first
+                int first = from == end1[s] ? child1[s] : child2[s];
+                int second = from == end1[s] ? child2[s] : child1[s];
+                stack[top++] = second;
+                stack[top++] = mid[s];
+                stack[top++] = first;
+                stack[top++] = from;
+            }
+        }
+        return edges;
+    }
+
+    // Contraction state: a mutable copy of the graph that loses each node as
+    // it is contracted and gains the shortcuts that replace it
+    private static class Builder {
+        private final int n;
+        private final int edgeCount;
+        private final int[][] adjNode;
+        private final double[][] adjWeight;
+        private final int[][] adjArc;
+        private final int[] adjSize;
+        private final int[] deletedNeighbours;
+        private final SearchWorkspace witness = new SearchWorkspace();
+        private final int[] directMark; // == markGeneration where direct[] is current
+        private final double[] direct;
+        private int markGeneration;
+        private int[] targets = new int[16]; // positions in the contracted node's list still needing a witness
+
+        final int[] rank;
+        final int[][] upNode;
+        final double[][] upWeight;
+        final int[][] upArc;
+
+        int[] end1 = new int[16], mid = new int[16], child1 = new int[16], child2 = new int[16];
+        int shortcutCount;
+
+        Builder(AdjacencyIndex index) {
+            n = index.nodeCount();
+            edgeCount = index.edges.length;
+            adjNode = new int[n][];
+            adjWeight = new double[n][];
+            adjArc = new int[n][];
+            adjSize = new int[n];
+            deletedNeighbours = new int[n];
+            directMark = new int[n];
+            direct = new double[n];
+            rank = new int[n];
+            upNode = new int[n][];
+            upWeight = new double[n][];
+            upArc = new int[n][];
+            for (int v = 0; v < n; v++) {
+                int degree = index.degree(v);
+                adjNode[v] = new int[Math.max(degree, 2)];
+                adjWeight[v] = new double[Math.max(degree, 2)];
+                adjArc[v] = new int[Math.max(degree, 2)];
+            }
+            // Self-loops never help, and of parallel edges only the shortest does
+            for (int v = 0; v < n; v++) {
+                for (int i = index.offsets[v]; i < index.offsets[v + 1]; i++) {
+                    int t = index.targets[i];
+                    if (t != v) {
+                        link(v, t, index.weights[i], index.edgeIds[i]);
+                    }
+                }
+            }
+        }
+
+        boolean run(AtomicBoolean cancelled) {
+            IndexedMinHeap queue = new IndexedMinHeap(n);
+            for (int v = 0; v < n; v++) {
+                queue.insert(v, priority(v));
+            }
+
+            int order = 0;
+            while (!queue.isEmpty()) {
+                if ((order & 1023) == 0 && cancelled.get()) {
+                    return false;
+                }
+                int v = queue.poll();
+                // Lazy update: priorities go stale as neighbours are contracted
+                double current = priority(v);
+                if (!queue.isEmpty() && current > queue.peekKey()) {
+                    queue.insert(v, current);
+                    continue;
+                }
+
+                contract(v, false);
+                rank[v] = order++;
+                upNode[v] = Arrays.copyOf(adjNode[v], adjSize[v]);
+                upWeight[v] = Arrays.copyOf(adjWeight[v], adjSize[v]);
+                upArc[v] = Arrays.copyOf(adjArc[v], adjSize[v]);
+                for (int i = 0; i < adjSize[v]; i++) {
+                    int u = adjNode[v][i];
+                    unlink(u, v);
+                    deletedNeighbours[u]++;
+                }
+                // Each neighbour lost an edge to v: bump its key for the deleted
+                // neighbour now and leave the full re-simulation to the lazy update
+                for (int i = 0; i < adjSize[v]; i++) {
+                    int u = adjNode[v][i];
+                    if (queue.contains(u)) {
+                        queue.changeKey(u, queue.keyOf(u) + 1);
+                    }
+                }
+            }
+            return true;
+        }
+
+        private double priority(int v) {
+            return contract(v, true) - adjSize[v] + deletedNeighbours[v];
+        }
+
+        // Returns how many shortcuts contracting v needs; adds them unless simulating
+        private int contract(int v, boolean simulate) {
+            int degree = adjSize[v];
+            int[] neighbours = adjNode[v];
+            double[] weights = adjWeight[v];
+            int[] arcs = adjArc[v];
+            int limit = simulate ? SIMULATE_SETTLE_LIMIT : WITNESS_SETTLE_LIMIT;
+            if (targets.length < degree) {
+                targets = new int[degree];
+            }
+
+            int added = 0;
+            for (int i = 0; i < degree - 1; i++) {
+                int u = neighbours[i];
+                // A direct arc u-w is the cheapest witness; in the dense upper
+                // levels it settles nearly every pair without a search
+                markGeneration++;
+                for (int k = 0; k < adjSize[u]; k++) {
+                    directMark[adjNode[u][k]] = markGeneration;
+                    direct[adjNode[u][k]] = adjWeight[u][k];
+                }
+                int pending = 0;
+                double maxVia = 0;
+                for (int j = i + 1; j < degree; j++) {
+                    int w = neighbours[j];
+                    double via = weights[i] + weights[j];
+                    if (directMark[w] != markGeneration || direct[w] > via) {
+                        targets[pending++] = j;
+                        maxVia = Math.max(maxVia, via);
+                    }
+                }
+                if (pending == 0) {
+                    continue;
+                }
+
+                witnessSearch(u, v, maxVia, neighbours, pending, limit);
+                for (int k = 0; k < pending; k++) {
+                    int j = targets[k];
+                    int w = neighbours[j];
+                    double via = weights[i] + weights[j];
+                    if (witness.gScore(w) <= via) {
+                        continue;
+                    }
+                    added++;
+                    if (!simulate) {
+                        link(u, w, via, addShortcut(u, v, w, arcs[i], arcs[j]));
+                    }
+                }
+            }
+            return added;
+        }
+
+        // Dijkstra from source among the remaining nodes, avoiding skip, until
+        // the first count entries of targets (positions in neighbours) are all
+        // settled, or the search passes maxDistance or the settle limit
+        private void witnessSearch(int source, int skip, double maxDistance,
+                                   int[] neighbours, int count, int limit) {
+            markGeneration++;
+            for (int k = 0; k < count; k++) {
+                directMark[neighbours[targets[k]]] = markGeneration;
+            }
+            witness.reset(n);
+            IndexedMinHeap openSet = witness.openSet;
+            witness.update(source, 0.0, -1, -1);
+            openSet.insert(source, 0.0);
+            int pending = count;
+            int settled = 0;
+            while (!openSet.isEmpty() && openSet.peekKey() <= maxDistance && settled++ < limit) {
+                int current = openSet.poll();
+                if (directMark[current] == markGeneration && --pending == 0) {
+                    return;
+                }
+                double currentG = witness.gScore(current);
+                for (int i = 0; i < adjSize[current]; i++) {
+                    int neighbor = adjNode[current][i];
+                    if (neighbor == skip) {
+                        continue;
+                    }
+                    double g = currentG + adjWeight[current][i];
+                    if (g < witness.gScore(neighbor)) {
+                        witness.update(neighbor, g, current, -1);
+                        openSet.insertOrDecrease(neighbor, g);
+                    }
+                }
+            }
+        }
+
+        private int addShortcut(int u, int v, int w, int arcUV, int arcVW) {
+            if (shortcutCount == end1.length) {
+                int capacity = shortcutCount * 2;
+                end1 = Arrays.copyOf(end1, capacity);
+                mid = Arrays.copyOf(mid, capacity);
+                child1 = Arrays.copyOf(child1, capacity);
+                child2 = Arrays.copyOf(child2, capacity);
+            }
+            end1[shortcutCount] = u;
+            mid[shortcutCount] = v;
+            child1[shortcutCount] = arcUV;
+            child2[shortcutCount] = arcVW;
+            return edgeCount + shortcutCount++;
+        }
+
+        // Adds the arc both ways, or shortens an existing one between the same pair
+        private void link(int a, int b, double weight, int arc) {
+            linkOneWay(a, b, weight, arc);
+            linkOneWay(b, a, weight, arc);
+        }
+
+        private void linkOneWay(int a, int b, double weight, int arc) {
+            for (int i = 0; i < adjSize[a]; i++) {
+                if (adjNode[a][i] == b) {
+                    if (weight < adjWeight[a][i]) {
+                        adjWeight[a][i] = weight;
+                        adjArc[a][i] = arc;
+                    }
+                    return;
+                }
+            }
+            if (adjSize[a] == adjNode[a].length) {
+                int capacity = adjSize[a] * 2;
+                adjNode[a] = Arrays.copyOf(adjNode[a], capacity);
+                adjWeight[a] = Arrays.copyOf(adjWeight[a], capacity);
+                adjArc[a] = Arrays.copyOf(adjArc[a], capacity);
+            }
+            adjNode[a][adjSize[a]] = b;
+            adjWeight[a][adjSize[a]] = weight;
+            adjArc[a][adjSize[a]] = arc;
+            adjSize[a]++;
+        }
+
+        private void unlink(int a, int b) {
+            for (int i = 0; i < adjSize[a]; i++) {
+                if (adjNode[a][i] == b) {
+                    int last = --adjSize[a];
+                    adjNode[a][i] = adjNode[a][last];
+                    adjWeight[a][i] = adjWeight[a][last];
+                    adjArc[a][i] = adjArc[a][last];
+                    return;
+                }
+            }
+        }
+    }
+}
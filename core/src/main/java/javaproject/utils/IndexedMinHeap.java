@@ -0,0 +1,155 @@
+package javaproject.utils;
+
+import java.util.Arrays;
+
+// Binary min-heap over item ids 0..capacity-1 with O(1) membership and
+// O(log n) decrease-key, used as the open set of the path searches
+public class IndexedMinHeap {
+    private int[] heap;     // heap slot -> item
+    private int[] position; // item -> heap slot, -1 when not queued
+    private double[] keys;  // item -> key
+    private int size;
+    private int operations; // inserts, key changes and polls since the last clear
+
+    public IndexedMinHeap(int capacity) {
+        heap = new int[capacity];
+        position = new int[capacity];
+        keys = new double[capacity];
+        Arrays.fill(position, -1);
+    }
+
+    public void ensureCapacity(int capacity) {
+        if (capacity > position.length) {
+            int oldLength = position.length;
+            heap = Arrays.copyOf(heap, capacity);
+            position = Arrays.copyOf(position, capacity);
+            keys = Arrays.copyOf(keys, capacity);
+            Arrays.fill(position, oldLength, capacity, -1);
+        }
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int item) {
+        return position[item] >= 0;
+    }
+
+    public double keyOf(int item) {
+        return keys[item];
+    }
+
+    public void insert(int item, double key) {
+        heap[size] = item;
+        position[item] = size;
+        keys[item] = key;
+        siftUp(size++);
+        operations++;
+    }
+
+    public void decreaseKey(int item, double key) {
+        keys[item] = key;
+        siftUp(position[item]);
+        operations++;
+    }
+
+    // Inserts the item, or lowers its key if it is already queued with a larger one
+    public void insertOrDecrease(int item, double key) {
+        if (position[item] < 0) {
+            insert(item, key);
+        } else if (key < keys[item]) {
+            decreaseKey(item, key);
+        }
+    }
+
+    // Moves a queued item either way, for priorities that can also grow
+    public void changeKey(int item, double key) {
+        double old = keys[item];
+        keys[item] = key;
+        if (key < old) {
+            siftUp(position[item]);
+        } else {
+            siftDown(position[item]);
+        }
+        operations++;
+    }
+
+    public int peek() {
+        return heap[0];
+    }
+
+    public double peekKey() {
+        return keys[heap[0]];
+    }
+
+    public int poll() {
+        int min = heap[0];
+        position[min] = -1;
+        size--;
+        if (size > 0) {
+            int last = heap[size];
+            heap[0] = last;
+            position[last] = 0;
+            siftDown(0);
+        }
+        operations++;
+        return min;
+    }
+
+    // Costs O(size), not O(capacity)
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            position[heap[i]] = -1;
+        }
+        size = 0;
+        operations = 0;
+    }
+
+    public int operations() {
+        return operations;
+    }
+
+    private void siftUp(int slot) {
+        int item = heap[slot];
+        double key = keys[item];
+        while (slot > 0) {
+            int parent = (slot - 1) >>> 1;
+            int parentItem = heap[parent];
+            if (keys[parentItem] <= key) {
+                break;
+            }
+            heap[slot] = parentItem;
+            position[parentItem] = slot;
+            slot = parent;
+        }
+        heap[slot] = item;
+        position[item] = slot;
+    }
+
+    private void siftDown(int slot) {
+        int item = heap[slot];
+        double key = keys[item];
+        int half = size >>> 1;
+        while (slot < half) {
+            int child = 2 * slot + 1;
+            int right = child + 1;
+            if (right < size && keys[heap[right]] < keys[heap[child]]) {
+                child = right;
+            }
+            int childItem = heap[child];
+            if (key <= keys[childItem]) {
+                break;
+            }
+            heap[slot] = childItem;
+            position[childItem] = slot;
+            slot = child;
+        }
+        heap[slot] = item;
+        position[item] = slot;
+    }
+}
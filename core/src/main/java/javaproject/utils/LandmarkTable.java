@@ -0,0 +1,126 @@
+package javaproject.utils;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+import javaproject.models.AdjacencyIndex;
+
+// Landmark distances for the ALT heuristic (A*, landmarks, triangle
+// inequality). For any landmark L, |d(L, t) - d(L, v)| <= d(v, t) on an
+// undirected graph, so the largest such gap over all landmarks is a lower
+// bound on the remaining distance that, unlike the straight line, knows
+// about curves, walls and detours. Built on one AdjacencyIndex snapshot.
+public class LandmarkTable {
+    public static final int DEFAULT_LANDMARKS = 16;
+    // Distances take 8 bytes per node per landmark; fewer landmarks are used above this
+    private static final long MAX_ENTRIES = 1L << 24;
+
+    public final AdjacencyIndex index;
+    public final int[] landmarks; // node ids
+    private final double[] distance; // [v * k + l], +Infinity when unreachable from landmark l
+    private final int k;
+
+    private LandmarkTable(AdjacencyIndex index, int[] landmarks, double[] distance) {
+        this.index = index;
+        this.landmarks = landmarks;
+        this.distance = distance;
+        this.k = landmarks.length;
+    }
+
+    // Returns null if cancelled
+    public static LandmarkTable compute(AdjacencyIndex index, int count, ForkJoinPool pool, AtomicBoolean cancelled) {
+        int n = index.nodeCount();
+        int k = (int) Math.min(Math.min(count, n), MAX_ENTRIES / Math.max(n, 1));
+        int[] landmarks = selectLandmarks(index, k);
+        double[] distance = new double[n * k];
+        // Workspaces belong to this job, so the pool's threads do not keep them
+        ConcurrentLinkedQueue<SearchWorkspace> workspaces = new ConcurrentLinkedQueue<>();
+        try {
+            pool.submit(() -> IntStream.range(0, k).parallel().forEach(l -> {
+                if (cancelled.get()) {
+                    return;
+                }
+                SearchWorkspace workspace = workspaces.poll();
+                if (workspace == null) {
+                    workspace = new SearchWorkspace();
+                }
+                SpecialRouteTable.dijkstra(index, landmarks[l], workspace);
+                for (int v = 0; v < n; v++) {
+                    distance[v * k + l] = workspace.gScore(v);
+                }
+                workspaces.offer(workspace);
+            })).get();
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+        if (cancelled.get()) {
+            return null;
+        }
+        return new LandmarkTable(index, landmarks, distance);
+    }
+
+    // Farthest-point selection: start from the node farthest from the centre,
+    // then repeatedly take the node farthest from every landmark chosen so far.
+    // Distances here are straight-line, so that selection needs no searches and
+    // the landmark searches can all run at once; good landmarks sit on the
+    // edges of the map, which straight-line spread finds as well.
+    private static int[] selectLandmarks(AdjacencyIndex index, int k) {
+        int n = index.nodeCount();
+        int[] landmarks = new int[k];
+        if (k == 0) {
+            return landmarks;
+        }
+        double cx = 0, cy = 0;
+        for (int v = 0; v < n; v++) {
+            cx += index.x[v];
+            cy += index.y[v];
+        }
+        cx /= n;
+        cy /= n;
+
+        double[] nearest = new double[n]; // squared distance to the closest landmark, or centre at first
+        for (int v = 0; v < n; v++) {
+            nearest[v] = squared(index.x[v] - cx, index.y[v] - cy);
+        }
+        for (int l = 0; l < k; l++) {
+            int farthest = 0;
+            for (int v = 1; v < n; v++) {
+                if (nearest[v] > nearest[farthest]) {
+                    farthest = v;
+                }
+            }
+            landmarks[l] = farthest;
+            for (int v = 0; v < n; v++) {
+                double d = squared(index.x[v] - index.x[farthest], index.y[v] - index.y[farthest]);
+                nearest[v] = l == 0 ? d : Math.min(nearest[v], d);
+            }
+        }
+        return landmarks;
+    }
+
+    private static double squared(double dx, double dy) {
+        return dx * dx + dy * dy;
+    }
+
+    // Largest landmark bound on d(node, goal); landmarks that cannot reach
+    // both nodes say nothing and are skipped
+    public double lowerBound(int node, int goal) {
+        int a = node * k;
+        int b = goal * k;
+        double best = 0;
+        for (int l = 0; l < k; l++) {
+            double gap = Math.abs(distance[b + l] - distance[a + l]);
+            if (gap > best && gap != Double.POSITIVE_INFINITY) {
+                best = gap;
+            }
+        }
+        return best;
+    }
+
+    public long memoryBytes() {
+        return 8L * distance.length;
+    }
+}
@@ -0,0 +1,359 @@
+package javaproject.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import javaproject.models.ControlPoint;
+import javaproject.models.Edge;
+import javaproject.models.Graph;
+import javaproject.models.Node;
+
+// Seeded synthetic maps for load and scalability testing, since the editor
+// only creates nodes one click at a time. Three layouts:
+//
+//   grid      nodes jittered around a square grid, about 90% of the links present
+//   geometric uniform random points, each linked to every point within a radius
+//             giving an average degree of about 5; about 8% of the points end
+//             up outside the main component
+//   road      towns of irregular street grids joined by highways made of long
+//             chains of degree-2 nodes; always connected
+//
+// The same layout, size, seed and fractions always give the same map. A
+// fraction of the edges is curved, with a control point pushed off the
+// midpoint, and a fraction of the nodes is special. Every special node becomes
+// a source of SpecialRouteTable, so keep that fraction small on large maps.
+// Labels are "n<id>".
+//
+//   java javaproject.utils.MapGenerator grid|geometric|road nodes out.json|out.mapbin
+//        [--seed S] [--curved F] [--special F]
+public class MapGenerator {
+    public static final String GRID = "grid";
+    public static final String GEOMETRIC = "geometric";
+    public static final String ROAD = "road";
+    public static final List<String> LAYOUTS = List.of(GRID, GEOMETRIC, ROAD);
+
+    public static final long DEFAULT_SEED = 42;
+    public static final double DEFAULT_CURVED = 0.25;
+    public static final double DEFAULT_SPECIAL = 0.001;
+
+    private static final double SPACING = 10; // typical distance between neighbouring nodes
+    private static final double GEOMETRIC_DEGREE = 5;
+    private static final int TOWN_SIZE = 2000; // average nodes per town
+    private static final double HIGHWAY_SHARE = 0.1; // at most this fraction of the nodes sits on highways
+    private static final int AVENUE_EVERY = 4; // town columns fully linked top to bottom
+
+    private final Random random;
+    private final double curvedFraction, specialFraction;
+    private final Graph graph = new Graph();
+    private final List<Node> nodes = graph.getNodes();
+
+    private MapGenerator(long seed, double curvedFraction, double specialFraction) {
+        this.random = new Random(seed);
+        this.curvedFraction = curvedFraction;
+        this.specialFraction = specialFraction;
+    }
+
+    public static Graph generate(String layout, int nodeCount, long seed, double curvedFraction,
+                                 double specialFraction) {
+        MapGenerator generator = new MapGenerator(seed, curvedFraction, specialFraction);
+        switch (layout) {
+            case GRID:
+                generator.grid(nodeCount);
+                break;
+            case GEOMETRIC:
+                generator.geometric(nodeCount);
+                break;
+            case ROAD:
+                generator.road(nodeCount);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown layout " + layout);
+        }
+        return generator.graph;
+    }
+
+    public static Graph generate(String layout, int nodeCount, long seed) {
+        return generate(layout, nodeCount, seed, DEFAULT_CURVED, DEFAULT_SPECIAL);
+    }
+
+    private void grid(int nodeCount) {
+        int side = (int) Math.ceil(Math.sqrt(nodeCount));
+        for (int i = 0; i < nodeCount; i++) {
+            node(i % side * SPACING + random.nextDouble() * SPACING * 0.4,
+                    i / side * SPACING + random.nextDouble() * SPACING * 0.4);
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            if (i % side < side - 1 && i + 1 < nodeCount && random.nextInt(10) > 0) {
+                link(i, i + 1);
+            }
+            if (i + side < nodeCount && random.nextInt(10) > 0) {
+                link(i, i + side);
+            }
+        }
+    }
+
+    private void geometric(int nodeCount) {
+        double side = Math.sqrt(nodeCount) * SPACING;
+        for (int i = 0; i < nodeCount; i++) {
+            node(random.nextDouble() * side, random.nextDouble() * side);
+        }
+
+        // Bucket the points into cells one radius wide, so each point only
+        // compares against the 3x3 cells around it
+        double radius = SPACING * Math.sqrt(GEOMETRIC_DEGREE / Math.PI);
+        int cells = Math.max(1, (int) Math.ceil(side / radius));
+        int[] head = new int[cells * cells];
+        int[] next = new int[nodeCount];
+        Arrays.fill(head, -1);
+        for (int i = nodeCount - 1; i >= 0; i--) {
+            int cell = cellOf(nodes.get(i), radius, cells);
+            next[i] = head[cell];
+            head[cell] = i;
+        }
+
+        double radiusSquared = radius * radius;
+        for (int i = 0; i < nodeCount; i++) {
+            Node node = nodes.get(i);
+            int cx = Math.min((int) (node.x / radius), cells - 1);
+            int cy = Math.min((int) (node.y / radius), cells - 1);
+            for (int y = Math.max(0, cy - 1); y <= Math.min(cells - 1, cy + 1); y++) {
+                for (int x = Math.max(0, cx - 1); x <= Math.min(cells - 1, cx + 1); x++) {
+                    for (int j = head[y * cells + x]; j >= 0; j = next[j]) {
+                        Node other = nodes.get(j);
+                        double dx = other.x - node.x;
+                        double dy = other.y - node.y;
+                        if (j > i && dx * dx + dy * dy <= radiusSquared) {
+                            link(i, j);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static int cellOf(Node node, double size, int cells) {
+        int x = Math.min((int) (node.x / size), cells - 1);
+        int y = Math.min((int) (node.y / size), cells - 1);
+        return y * cells + x;
+    }
+
+    private void road(int nodeCount) {
+        int towns = Math.max(1, Math.min(nodeCount, Math.round(nodeCount / (float) TOWN_SIZE)));
+        // Towns cover about a third of the area, the rest is countryside for the highways
+        double side = Math.sqrt(nodeCount * 3.0) * SPACING;
+        double[] centerX = new double[towns], centerY = new double[towns];
+        double[] weight = new double[towns];
+        double totalWeight = 0;
+        for (int t = 0; t < towns; t++) {
+            centerX[t] = random.nextDouble() * side;
+            centerY[t] = random.nextDouble() * side;
+            weight[t] = Math.exp(random.nextGaussian() * 0.8); // a few big towns, many small ones
+            totalWeight += weight[t];
+        }
+
+        // Highways: a spanning tree over the towns plus, for some towns, a
+        // second road to the nearest town not yet joined to it
+        List<int[]> highways = spanningTree(centerX, centerY);
+        boolean[][] joined = towns <= 4096 ? new boolean[towns][towns] : null;
+        if (joined != null) {
+            for (int[] road : highways) {
+                joined[road[0]][road[1]] = joined[road[1]][road[0]] = true;
+            }
+            for (int t = 0; t < towns; t++) {
+                if (random.nextInt(10) < 3) {
+                    int nearest = -1;
+                    double best = Double.POSITIVE_INFINITY;
+                    for (int u = 0; u < towns; u++) {
+                        double d = Math.hypot(centerX[u] - centerX[t], centerY[u] - centerY[t]);
+                        if (u != t && !joined[t][u] && d < best) {
+                            best = d;
+                            nearest = u;
+                        }
+                    }
+                    if (nearest >= 0) {
+                        joined[t][nearest] = joined[nearest][t] = true;
+                        highways.add(new int[] { t, nearest });
+                    }
+                }
+            }
+        }
+
+        // Chain nodes are spread evenly, stretched when the roads are too long
+        // for the share of nodes they may take
+        double highwayLength = 0;
+        for (int[] road : highways) {
+            highwayLength += Math.hypot(centerX[road[1]] - centerX[road[0]], centerY[road[1]] - centerY[road[0]]);
+        }
+        double segment = Math.max(SPACING * 4, highwayLength / Math.max(1, nodeCount * HIGHWAY_SHARE));
+        int[] chainNodes = new int[highways.size()];
+        int highwayNodes = 0;
+        for (int i = 0; i < highways.size(); i++) {
+            int[] road = highways.get(i);
+            double length = Math.hypot(centerX[road[1]] - centerX[road[0]], centerY[road[1]] - centerY[road[0]]);
+            chainNodes[i] = Math.max(0, (int) (length / segment) - 1);
+            highwayNodes += chainNodes[i];
+        }
+
+        int[] size = new int[towns];
+        int townNodes = nodeCount - highwayNodes;
+        int assigned = 0;
+        for (int t = 0; t < towns; t++) {
+            size[t] = Math.max(1, (int) ((townNodes - towns) * weight[t] / totalWeight) + 1);
+            assigned += size[t];
+        }
+        for (int t = 0; assigned < townNodes; t = (t + 1) % towns) {
+            size[t]++;
+            assigned++;
+        }
+
+        int[] hub = new int[towns];
+        for (int t = 0; t < towns; t++) {
+            hub[t] = town(centerX[t], centerY[t], size[t]);
+        }
+        for (int i = 0; i < highways.size(); i++) {
+            int[] road = highways.get(i);
+            highway(hub[road[0]], hub[road[1]], chainNodes[i]);
+        }
+    }
+
+    // Prim's algorithm on the complete graph of town centres; towns are few
+    // enough that the quadratic scan is cheap
+    private static List<int[]> spanningTree(double[] x, double[] y) {
+        int n = x.length;
+        List<int[]> edges = new ArrayList<>(n);
+        boolean[] inTree = new boolean[n];
+        double[] best = new double[n];
+        int[] parent = new int[n];
+        Arrays.fill(best, Double.POSITIVE_INFINITY);
+        best[0] = 0;
+        for (int step = 0; step < n; step++) {
+            int next = -1;
+            for (int i = 0; i < n; i++) {
+                if (!inTree[i] && (next < 0 || best[i] < best[next])) {
+                    next = i;
+                }
+            }
+            inTree[next] = true;
+            if (step > 0) {
+                edges.add(new int[] { parent[next], next });
+            }
+            for (int i = 0; i < n; i++) {
+                double d = Math.hypot(x[i] - x[next], y[i] - y[next]);
+                if (!inTree[i] && d < best[i]) {
+                    best[i] = d;
+                    parent[i] = next;
+                }
+            }
+        }
+        return edges;
+    }
+
+    // A rotated street grid: every row is one long street, every AVENUE_EVERY-th
+    // column an avenue crossing all of them (the first one keeps the town
+    // connected) and the other cross streets are sparse. Returns the node
+    // nearest the centre, where the highways arrive.
+    private int town(double centerX, double centerY, int size) {
+        int first = nodes.size();
+        int width = (int) Math.ceil(Math.sqrt(size));
+        int rows = (size + width - 1) / width;
+        double angle = random.nextDouble() * Math.PI;
+        double cos = Math.cos(angle), sin = Math.sin(angle);
+        for (int i = 0; i < size; i++) {
+            double localX = (i % width - (width - 1) / 2.0) * SPACING + random.nextGaussian() * SPACING * 0.15;
+            double localY = (i / width - (rows - 1) / 2.0) * SPACING + random.nextGaussian() * SPACING * 0.15;
+            node(centerX + localX * cos - localY * sin, centerY + localX * sin + localY * cos);
+        }
+        for (int i = 0; i < size; i++) {
+            int column = i % width;
+            if (column < width - 1 && i + 1 < size) {
+                link(first + i, first + i + 1);
+            }
+            if (i + width < size && (column % AVENUE_EVERY == 0 || random.nextInt(10) < 2)) {
+                link(first + i, first + i + width);
+            }
+        }
+        return first + Math.min(size - 1, rows / 2 * width + width / 2);
+    }
+
+    // A gently bending chain of degree-2 nodes between two town hubs
+    private void highway(int from, int to, int chainNodes) {
+        Node a = nodes.get(from), b = nodes.get(to);
+        double dx = b.x - a.x, dy = b.y - a.y;
+        double bend = random.nextGaussian() * 0.05; // sideways sag as a fraction of the length
+        int previous = from;
+        for (int k = 1; k <= chainNodes; k++) {
+            double t = k / (double) (chainNodes + 1);
+            double sag = bend * Math.sin(Math.PI * t);
+            previous = link(previous, node(a.x + dx * t - dy * sag, a.y + dy * t + dx * sag));
+        }
+        link(previous, to);
+    }
+
+    private int node(double x, double y) {
+        int id = nodes.size();
+        graph.addNode(new Node(x, y, "n" + id, random.nextDouble() < specialFraction));
+        return id;
+    }
+
+    // Returns the second end point, so chains can be built link by link
+    private int link(int from, int to) {
+        Node a = nodes.get(from), b = nodes.get(to);
+        if (random.nextDouble() >= curvedFraction) {
+            graph.addEdge(new Edge(a, b, false, null));
+        } else {
+            double offset = random.nextGaussian() * 0.2;
+            ControlPoint control = new ControlPoint((a.x + b.x) / 2 - (b.y - a.y) * offset,
+                    (a.y + b.y) / 2 + (b.x - a.x) * offset);
+            graph.addEdge(new Edge(a, b, true, control));
+        }
+        return to;
+    }
+
+    public static void main(String[] args) {
+        List<String> positional = new ArrayList<>();
+        long seed = DEFAULT_SEED;
+        double curved = DEFAULT_CURVED;
+        double special = DEFAULT_SPECIAL;
+        int nodeCount = 0;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("--seed")) {
+                    seed = Long.parseLong(args[++i]);
+                } else if (args[i].equals("--curved")) {
+                    curved = Double.parseDouble(args[++i]);
+                } else if (args[i].equals("--special")) {
+                    special = Double.parseDouble(args[++i]);
+                } else {
+                    positional.add(args[i]);
+                }
+            }
+            if (positional.size() == 3) {
+                nodeCount = Integer.parseInt(positional.get(1));
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            positional.clear();
+        }
+        if (positional.size() != 3 || !LAYOUTS.contains(positional.get(0)) || nodeCount < 1
+                || curved < 0 || curved > 1 || special < 0 || special > 1) {
+            System.err.println("Usage: MapGenerator grid|geometric|road <nodes> <out.json|out" + MapIO.BINARY_EXTENSION
+                    + "> [--seed S] [--curved F] [--special F]");
+            System.exit(2);
+        }
+
+        long started = System.nanoTime();
+        Graph graph = generate(positional.get(0), nodeCount, seed, curved, special);
+        File file = new File(positional.get(2));
+        try {
+            MapIO.save(new MapIO.Snapshot(graph), file, MapIO.NO_PROGRESS);
+        } catch (IOException e) {
+            System.err.println("Failed: " + e.getMessage());
+            System.exit(1);
+        }
+        System.err.printf("Wrote %s: %d nodes, %d edges in %.0f ms%n", file.getName(), graph.nodeCount(),
+                graph.edgeCount(), (System.nanoTime() - started) / 1e6);
+    }
+}
@@ -0,0 +1,621 @@
+package javaproject.utils;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import javaproject.models.ControlPoint;
+import javaproject.models.Edge;
+import javaproject.models.Graph;
+import javaproject.models.Node;
+
+// Reader and writer for the two map formats, picked by file extension.
+//
+// JSON: {"nodes":[{x, y, label, isSpecial}...], "edges":[{node1Index, node2Index, curved, controlPoint?}...]}
+// streamed so only one node or edge object is held in memory at a time.
+//
+// .mapbin (little-endian, sections 8-byte aligned), read through a memory map:
+//   header   64 bytes: magic "MAPB", version, flags, nodeCount, edgeCount, reserved,
+//            then long offsets of the node, edge and string sections, the string
+//            section length and the lengths offset (0 when absent)
+//   nodes    24 bytes each: double x, double y, int label offset, int flags (1 = special)
+//   edges    32 bytes each: int node1, int node2, int flags (1 = curved, 2 = has
+//            control point), int reserved, double controlX, double controlY
+//   strings  int byte length + UTF-8 bytes per distinct label
+//   lengths  optional (flag 1): double rawLength[edgeCount], so loading need not
+//            recompute every curve; the adjacency index is rebuilt from the edges
+//
+// Both directions are safe to run off the FX thread; the caller swaps the result in.
+public class MapIO {
+    private static final int PROGRESS_EVERY = 4096; // records between progress callbacks
+
+    public static final String BINARY_EXTENSION = ".mapbin";
+    private static final int MAGIC = 0x4250414D; // "MAPB" read as a little-endian int
+    private static final int VERSION = 1;
+    private static final int FLAG_LENGTHS = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int NODE_SIZE = 24;
+    private static final int EDGE_SIZE = 32;
+    private static final int NODE_SPECIAL = 1;
+    private static final int EDGE_CURVED = 1;
+    private static final int EDGE_CONTROL = 2;
+
+    public interface Progress {
+        void update(double fraction);
+
+        boolean isCancelled();
+    }
+
+    // For callers with nothing to report to, such as the command-line tools
+    public static final Progress NO_PROGRESS = new Progress() {
+        @Override
+        public void update(double fraction) {
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+    };
+
+    // Plain copy of the graph taken on the FX thread, so saving can run while
+    // the user keeps editing
+    public static class Snapshot {
+        final double[] x, y;
+        final String[] label;
+        final boolean[] special;
+        final int[] node1, node2;
+        final boolean[] curved;
+        final double[] controlX, controlY; // NaN when the edge has no control point
+        final double[] length; // unscaled, stored by the binary format
+
+        public Snapshot(Graph graph) {
+            List<Node> nodes = graph.getNodes();
+            int n = nodes.size();
+            x = new double[n];
+            y = new double[n];
+            label = new String[n];
+            special = new boolean[n];
+            for (int i = 0; i < n; i++) {
+                Node node = nodes.get(i);
+                x[i] = node.x;
+                y[i] = node.y;
+                label[i] = node.label;
+                special[i] = node.isSpecial;
+            }
+
+            List<Edge> edges = graph.getEdges();
+            int m = edges.size();
+            node1 = new int[m];
+            node2 = new int[m];
+            curved = new boolean[m];
+            controlX = new double[m];
+            controlY = new double[m];
+            length = new double[m];
+            for (int i = 0; i < m; i++) {
+                Edge edge = edges.get(i);
+                node1[i] = edge.node1.id;
+                node2[i] = edge.node2.id;
+                curved[i] = edge.curved;
+                boolean hasControl = edge.curved && edge.controlPoint != null;
+                controlX[i] = hasControl ? edge.controlPoint.x : Double.NaN;
+                controlY[i] = hasControl ? edge.controlPoint.y : Double.NaN;
+                length[i] = edge.getRawLength();
+            }
+        }
+    }
+
+    public static boolean isBinary(File file) {
+        return file.getName().toLowerCase().endsWith(BINARY_EXTENSION);
+    }
+
+    public static Graph load(File file, Progress progress) throws IOException {
+        return isBinary(file) ? loadBinary(file, progress) : loadJson(file, progress);
+    }
+
+    public static void save(Snapshot map, File file, Progress progress) throws IOException {
+        if (isBinary(file)) {
+            saveBinary(map, file, progress);
+        } else {
+            saveJson(map, file, progress);
+        }
+    }
+
+    private static Graph loadJson(File file, Progress progress) throws IOException {
+        long total = Math.max(1, file.length());
+        try (CountingReader counter = new CountingReader(new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8), 1 << 16))) {
+            JSONTokener tokener = new JSONTokener(counter);
+            Graph graph = new Graph();
+            List<PendingEdge> pending = new ArrayList<>(); // edges listed before the nodes
+            boolean nodesRead = false;
+
+            expect(tokener, '{');
+            if (tokener.nextClean() != '}') {
+                tokener.back();
+                while (true) {
+                    Object key = tokener.nextValue();
+                    expect(tokener, ':');
+                    if ("nodes".equals(key)) {
+                        readArray(tokener, counter, total, progress, object -> graph.addNode(readNode(object)));
+                        nodesRead = true;
+                    } else if ("edges".equals(key)) {
+                        final boolean resolve = nodesRead;
+                        readArray(tokener, counter, total, progress, object -> {
+                            PendingEdge edge = readEdge(object);
+                            if (resolve) {
+                                edge.addTo(graph);
+                            } else {
+                                pending.add(edge);
+                            }
+                        });
+                    } else {
+                        tokener.nextValue(); // unknown key, skipped
+                    }
+
+                    char c = tokener.nextClean();
+                    if (c == '}') {
+                        break;
+                    }
+                    if (c != ',') {
+                        throw tokener.syntaxError("Expected ',' or '}'");
+                    }
+                }
+            }
+
+            for (PendingEdge edge : pending) {
+                edge.addTo(graph);
+            }
+            progress.update(1);
+            return graph;
+        } catch (JSONException e) {
+            throw new IOException("Invalid map file: " + e.getMessage(), e);
+        }
+    }
+
+    // Writes to a temporary file next to the target and moves it into place,
+    // so a cancelled or failed save leaves the previous file intact
+    private static void saveJson(Snapshot map, File file, Progress progress) throws IOException {
+        File temp = temporaryFile(file);
+        int n = map.x.length;
+        int m = map.node1.length;
+        long total = Math.max(1, (long) n + m);
+        boolean done = false;
+        try {
+            try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                    new FileOutputStream(temp), StandardCharsets.UTF_8), 1 << 16)) {
+                out.write("{\"nodes\":[");
+                for (int i = 0; i < n; i++) {
+                    if (i > 0) {
+                        out.write(',');
+                    }
+                    out.write("{\"x\":");
+                    out.write(JSONObject.numberToString(map.x[i]));
+                    out.write(",\"y\":");
+                    out.write(JSONObject.numberToString(map.y[i]));
+                    out.write(",\"label\":");
+                    out.write(JSONObject.quote(map.label[i]));
+                    out.write(",\"isSpecial\":");
+                    out.write(map.special[i] ? "true" : "false");
+                    out.write('}');
+                    report(progress, i, total);
+                }
+                out.write("],\"edges\":[");
+                for (int i = 0; i < m; i++) {
+                    if (i > 0) {
+                        out.write(',');
+                    }
+                    out.write("{\"node1Index\":");
+                    out.write(Integer.toString(map.node1[i]));
+                    out.write(",\"node2Index\":");
+                    out.write(Integer.toString(map.node2[i]));
+                    out.write(",\"curved\":");
+                    out.write(map.curved[i] ? "true" : "false");
+                    if (!Double.isNaN(map.controlX[i])) {
+                        out.write(",\"controlPoint\":{\"x\":");
+                        out.write(JSONObject.numberToString(map.controlX[i]));
+                        out.write(",\"y\":");
+                        out.write(JSONObject.numberToString(map.controlY[i]));
+                        out.write('}');
+                    }
+                    out.write('}');
+                    report(progress, n + i, total);
+                }
+                out.write("]}");
+            }
+            checkCancelled(progress);
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            done = true;
+            progress.update(1);
+        } finally {
+            if (!done) {
+                temp.delete();
+            }
+        }
+    }
+
+    // Nodes and edges are decoded straight out of the mapped file; only labels are copied
+    private static Graph loadBinary(File file, Progress progress) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException("Invalid map file: unexpected size " + size);
+            }
+            ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+            if (in.getInt(0) != MAGIC) {
+                throw new IOException("Invalid map file: not a " + BINARY_EXTENSION + " file");
+            }
+            if (in.getInt(4) != VERSION) {
+                throw new IOException("Unsupported " + BINARY_EXTENSION + " version " + in.getInt(4));
+            }
+            int flags = in.getInt(8);
+            int n = in.getInt(12);
+            int m = in.getInt(16);
+            long nodesOffset = in.getLong(24);
+            long edgesOffset = in.getLong(32);
+            long stringsOffset = in.getLong(40);
+            long stringsLength = in.getLong(48);
+            long lengthsOffset = in.getLong(56);
+            checkSection(size, nodesOffset, (long) n * NODE_SIZE);
+            checkSection(size, edgesOffset, (long) m * EDGE_SIZE);
+            checkSection(size, stringsOffset, stringsLength);
+            long total = Math.max(1, (long) n + m);
+
+            Graph graph = new Graph();
+            Map<Integer, String> labels = new HashMap<>();
+            for (int i = 0; i < n; i++) {
+                int record = (int) nodesOffset + i * NODE_SIZE;
+                int labelOffset = in.getInt(record + 16);
+                String label = labels.get(labelOffset);
+                if (label == null) {
+                    label = readString(in, (int) stringsOffset, (int) stringsLength, labelOffset);
+                    labels.put(labelOffset, label);
+                }
+                graph.addNode(new Node(in.getDouble(record), in.getDouble(record + 8), label,
+                        (in.getInt(record + 20) & NODE_SPECIAL) != 0));
+                report(progress, i, total);
+            }
+
+            List<Node> nodes = graph.getNodes();
+            for (int i = 0; i < m; i++) {
+                int record = (int) edgesOffset + i * EDGE_SIZE;
+                int node1 = in.getInt(record);
+                int node2 = in.getInt(record + 4);
+                int edgeFlags = in.getInt(record + 8);
+                if (node1 >= 0 && node1 < n && node2 >= 0 && node2 < n) {
+                    ControlPoint cp = (edgeFlags & EDGE_CONTROL) != 0
+                            ? new ControlPoint(in.getDouble(record + 16), in.getDouble(record + 24))
+                            : null;
+                    graph.addEdge(new Edge(nodes.get(node1), nodes.get(node2), (edgeFlags & EDGE_CURVED) != 0, cp));
+                }
+                report(progress, n + i, total);
+            }
+
+            // Stored lengths spare recomputing every curve on the first search
+            if ((flags & FLAG_LENGTHS) != 0 && graph.edgeCount() == m) {
+                checkSection(size, lengthsOffset, 8L * m);
+                List<Edge> edges = graph.getEdges();
+                for (int i = 0; i < m; i++) {
+                    edges.get(i).primeRawLength(in.getDouble((int) lengthsOffset + 8 * i));
+                }
+            }
+            progress.update(1);
+            return graph;
+        } catch (IndexOutOfBoundsException | BufferUnderflowException e) {
+            throw new IOException("Invalid map file: truncated " + BINARY_EXTENSION, e);
+        }
+    }
+
+    private static void saveBinary(Snapshot map, File file, Progress progress) throws IOException {
+        int n = map.x.length;
+        int m = map.node1.length;
+        long total = Math.max(1, (long) n + m);
+
+        // Distinct labels are stored once
+        Map<String, Integer> labelOffsets = new HashMap<>();
+        ByteArrayOutputStream strings = new ByteArrayOutputStream();
+        int[] labelOffset = new int[n];
+        for (int i = 0; i < n; i++) {
+            String label = map.label[i] != null ? map.label[i] : "";
+            Integer offset = labelOffsets.get(label);
+            if (offset == null) {
+                offset = strings.size();
+                byte[] bytes = label.getBytes(StandardCharsets.UTF_8);
+                strings.write(bytes.length);
+                strings.write(bytes.length >>> 8);
+                strings.write(bytes.length >>> 16);
+                strings.write(bytes.length >>> 24);
+                strings.write(bytes, 0, bytes.length);
+                labelOffsets.put(label, offset);
+            }
+            labelOffset[i] = offset;
+        }
+
+        long nodesOffset = HEADER_SIZE;
+        long edgesOffset = nodesOffset + (long) n * NODE_SIZE;
+        long stringsOffset = edgesOffset + (long) m * EDGE_SIZE;
+        long lengthsOffset = align(stringsOffset + strings.size());
+        long end = lengthsOffset + 8L * m;
+        if (end > Integer.MAX_VALUE) {
+            throw new IOException("Map too large for " + BINARY_EXTENSION);
+        }
+
+        File temp = temporaryFile(file);
+        boolean done = false;
+        try {
+            try (FileChannel channel = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                BlockWriter out = new BlockWriter(channel);
+                out.putInt(MAGIC);
+                out.putInt(VERSION);
+                out.putInt(FLAG_LENGTHS);
+                out.putInt(n);
+                out.putInt(m);
+                out.putInt(0);
+                out.putLong(nodesOffset);
+                out.putLong(edgesOffset);
+                out.putLong(stringsOffset);
+                out.putLong(strings.size());
+                out.putLong(lengthsOffset);
+
+                for (int i = 0; i < n; i++) {
+                    out.putDouble(map.x[i]);
+                    out.putDouble(map.y[i]);
+                    out.putInt(labelOffset[i]);
+                    out.putInt(map.special[i] ? NODE_SPECIAL : 0);
+                    report(progress, i, total);
+                }
+                for (int i = 0; i < m; i++) {
+                    boolean hasControl = !Double.isNaN(map.controlX[i]);
+                    out.putInt(map.node1[i]);
+                    out.putInt(map.node2[i]);
+                    out.putInt((map.curved[i] ? EDGE_CURVED : 0) | (hasControl ? EDGE_CONTROL : 0));
+                    out.putInt(0);
+                    out.putDouble(hasControl ? map.controlX[i] : 0);
+                    out.putDouble(hasControl ? map.controlY[i] : 0);
+                    report(progress, n + i, total);
+                }
+                out.put(strings.toByteArray());
+                out.pad();
+                for (double length : map.length) {
+                    out.putDouble(length);
+                }
+                out.flush();
+            }
+            checkCancelled(progress);
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            done = true;
+            progress.update(1);
+        } finally {
+            if (!done) {
+                temp.delete();
+            }
+        }
+    }
+
+    // Little-endian output through one reusable buffer
+    private static class BlockWriter {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+        private long written;
+
+        BlockWriter(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void putInt(int value) throws IOException {
+            room(4);
+            buffer.putInt(value);
+        }
+
+        void putLong(long value) throws IOException {
+            room(8);
+            buffer.putLong(value);
+        }
+
+        void putDouble(double value) throws IOException {
+            room(8);
+            buffer.putDouble(value);
+        }
+
+        void put(byte[] bytes) throws IOException {
+            for (int i = 0; i < bytes.length; ) {
+                room(1);
+                int chunk = Math.min(bytes.length - i, buffer.remaining());
+                buffer.put(bytes, i, chunk);
+                i += chunk;
+            }
+        }
+
+        // Zero bytes up to the next 8-byte boundary
+        void pad() throws IOException {
+            while ((written + buffer.position()) % 8 != 0) {
+                room(1);
+                buffer.put((byte) 0);
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                written += channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        private void room(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+    }
+
+    private static String readString(ByteBuffer in, int stringsOffset, int stringsLength, int offset)
+            throws IOException {
+        if (offset < 0 || offset > stringsLength - 4) {
+            throw new IOException("Invalid map file: bad label offset " + offset);
+        }
+        int length = in.getInt(stringsOffset + offset);
+        if (length < 0 || length > stringsLength - offset - 4) {
+            throw new IOException("Invalid map file: bad label length " + length);
+        }
+        ByteBuffer bytes = in.duplicate();
+        bytes.position(stringsOffset + offset + 4).limit(stringsOffset + offset + 4 + length);
+        return StandardCharsets.UTF_8.decode(bytes).toString();
+    }
+
+    private static void checkSection(long size, long offset, long length) throws IOException {
+        if (offset < 0 || length < 0 || offset + length > size) {
+            throw new IOException("Invalid map file: section out of range");
+        }
+    }
+
+    private static long align(long offset) {
+        return (offset + 7) & ~7L;
+    }
+
+    private static File temporaryFile(File file) {
+        return new File(file.getAbsoluteFile().getParentFile(), file.getName() + ".tmp");
+    }
+
+    private interface RecordHandler {
+        void accept(JSONObject object);
+    }
+
+    // Parses the elements of an array one object at a time
+    private static void readArray(JSONTokener tokener, CountingReader counter, long total,
+            Progress progress, RecordHandler handler) {
+        expect(tokener, '[');
+        if (tokener.nextClean() == ']') {
+            return;
+        }
+        tokener.back();
+        for (int i = 0; ; i++) {
+            Object value = tokener.nextValue();
+            if (!(value instanceof JSONObject)) {
+                throw tokener.syntaxError("Expected an object");
+            }
+            handler.accept((JSONObject) value);
+            if (i % PROGRESS_EVERY == 0) {
+                checkCancelled(progress);
+                progress.update(Math.min(1.0, counter.count / (double) total));
+            }
+
+            char c = tokener.nextClean();
+            if (c == ']') {
+                return;
+            }
+            if (c != ',') {
+                throw tokener.syntaxError("Expected ',' or ']'");
+            }
+        }
+    }
+
+    private static Node readNode(JSONObject nodeObj) {
+        return new Node(
+                nodeObj.getDouble("x"),
+                nodeObj.getDouble("y"),
+                nodeObj.getString("label"),
+                nodeObj.getBoolean("isSpecial")
+        );
+    }
+
+    private static PendingEdge readEdge(JSONObject edgeObj) {
+        PendingEdge edge = new PendingEdge();
+        edge.node1Index = edgeObj.getInt("node1Index");
+        edge.node2Index = edgeObj.getInt("node2Index");
+        edge.curved = edgeObj.getBoolean("curved");
+        if (edge.curved && edgeObj.has("controlPoint")) {
+            JSONObject cpObj = edgeObj.getJSONObject("controlPoint");
+            edge.controlPoint = new ControlPoint(cpObj.getDouble("x"), cpObj.getDouble("y"));
+        }
+        return edge;
+    }
+
+    private static class PendingEdge {
+        int node1Index, node2Index;
+        boolean curved;
+        ControlPoint controlPoint;
+
+        // Edges pointing at missing nodes are dropped, as before
+        void addTo(Graph graph) {
+            int count = graph.nodeCount();
+            if (node1Index >= 0 && node1Index < count && node2Index >= 0 && node2Index < count) {
+                List<Node> nodes = graph.getNodes();
+                graph.addEdge(new Edge(nodes.get(node1Index), nodes.get(node2Index), curved, controlPoint));
+            }
+        }
+    }
+
+    private static void expect(JSONTokener tokener, char expected) {
+        if (tokener.nextClean() != expected) {
+            throw tokener.syntaxError("Expected '" + expected + "'");
+        }
+    }
+
+    private static void report(Progress progress, int i, long total) {
+        if (i % PROGRESS_EVERY == 0) {
+            checkCancelled(progress);
+            progress.update(i / (double) total);
+        }
+    }
+
+    private static void checkCancelled(Progress progress) {
+        if (progress.isCancelled()) {
+            throw new CancellationException();
+        }
+    }
+
+    // Characters consumed so far, close enough to bytes for a progress bar
+    private static class CountingReader extends FilterReader {
+        volatile long count;
+
+        CountingReader(Reader in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int c = super.read();
+            if (c >= 0) {
+                count++;
+            }
+            return c;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package javaproject.utils;
+
+import javaproject.models.ControlPoint;
+import javaproject.models.Node;
+
+public class MathUtils {
+
+    // 5-point Gauss-Legendre nodes and weights on [-1, 1]
+    private static final double[] GL_NODES = {
+            0.0, -0.5384693101056831, 0.5384693101056831, -0.9061798459386640, 0.9061798459386640
+    };
+    private static final double[] GL_WEIGHTS = {
+            0.5688888888888889, 0.4786286704993665, 0.4786286704993665, 0.2369268850561891, 0.2369268850561891
+    };
+    private static final double DEFAULT_TOLERANCE = 1e-9;
+    private static final int MAX_DEPTH = 30;
+    
+    public static double calculateDistance(Node n1, Node n2, double scaleRatio) {
+        double dx = n2.x - n1.x;
+        double dy = n2.y - n1.y;
+        return Math.sqrt(dx * dx + dy * dy) * scaleRatio;
+    }
+
+    public static double calculateCurveLength(Node p0, ControlPoint cp, Node p2, double scaleRatio) {
+        return quadraticBezierLength(p0.x, p0.y, cp.x, cp.y, p2.x, p2.y) * scaleRatio;
+    }
+
+    // Exact arc length of the quadratic Bezier p0-p1-p2. The speed is
+    // 2 * sqrt(a t^2 + b t + c), whose integral has a closed form; when the
+    // control point is (nearly) collinear with the end points that form loses
+    // precision, so those curves fall back to adaptive quadrature.
+    public static double quadraticBezierLength(double x0, double y0, double x1, double y1, double x2, double y2) {
+        double ax = x0 - 2 * x1 + x2;
+        double ay = y0 - 2 * y1 + y2;
+        double bx = x1 - x0;
+        double by = y1 - y0;
+
+        double a = ax * ax + ay * ay;
+        double b = 2 * (ax * bx + ay * by);
+        double c = bx * bx + by * by;
+
+        double chord = Math.hypot(x2 - x0, y2 - y0);
+        if (a <= 1e-24 * Math.max(chord * chord, c)) {
+            // Control point at the chord midpoint: a straight segment
+            return chord;
+        }
+
+        // 4ac - b^2 is never negative and vanishes for collinear control points;
+        // a tiny a (nearly straight curve) makes the closed form cancel badly
+        double discriminant = 4 * a * c - b * b;
+        if (discriminant <= 1e-8 * 4 * a * c || a <= 1e-6 * c) {
+            return quadraticBezierLengthAdaptive(x0, y0, x1, y1, x2, y2, DEFAULT_TOLERANCE);
+        }
+
+        double sqrtA = Math.sqrt(a);
+        double sqrtD = Math.sqrt(discriminant);
+        double endSpeed = Math.sqrt(a + b + c);
+        double startSpeed = Math.sqrt(c);
+        return ((2 * a + b) * endSpeed - b * startSpeed) / (2 * a)
+                + discriminant / (4 * a * sqrtA) * (asinh((2 * a + b) / sqrtD) - asinh(b / sqrtD));
+    }
+
+    // Adaptive Gauss-Legendre integration of the curve speed, to a relative tolerance
+    public static double quadraticBezierLengthAdaptive(double x0, double y0, double x1, double y1,
+                                                       double x2, double y2, double tolerance) {
+        return quadraticBezierLengthAdaptive(x0, y0, x1, y1, x2, y2, tolerance, null);
+    }
+
+    // As above; panels[0], when given, is increased by the number of Gauss-Legendre
+    // panels evaluated, so tests can bound the work instead of timing it
+    static double quadraticBezierLengthAdaptive(double x0, double y0, double x1, double y1,
+                                                double x2, double y2, double tolerance, int[] panels) {
+        // B'(t) = p + q t
+        double px = 2 * (x1 - x0);
+        double py = 2 * (y1 - y0);
+        double qx = 2 * (x0 - 2 * x1 + x2);
+        double qy = 2 * (y0 - 2 * y1 + y2);
+
+        // Scaled by the chord, floored by the control polygon so curves that
+        // return to their start point (zero chord) still terminate
+        double chord = Math.hypot(x2 - x0, y2 - y0);
+        double polygon = Math.hypot(x1 - x0, y1 - y0) + Math.hypot(x2 - x1, y2 - y1);
+        double absTolerance = Math.max(tolerance * Math.max(chord, 1e-3 * polygon), Double.MIN_NORMAL);
+
+        // The speed has a kink (a cusp, for collinear control points) where it is
+        // smallest; split there so no panel straddles it
+        double qq = qx * qx + qy * qy;
+        double split = qq > 0 ? -(px * qx + py * qy) / qq : 0;
+        if (split > 0 && split < 1) {
+            double left = gaussLegendre(px, py, qx, qy, 0, split);
+            double right = gaussLegendre(px, py, qx, qy, split, 1);
+            if (panels != null) {
+                panels[0] += 2;
+            }
+            return adaptive(px, py, qx, qy, 0, split, left, 0.5 * absTolerance, 0, panels)
+                    + adaptive(px, py, qx, qy, split, 1, right, 0.5 * absTolerance, 0, panels);
+        }
+        double whole = gaussLegendre(px, py, qx, qy, 0, 1);
+        if (panels != null) {
+            panels[0]++;
+        }
+        return adaptive(px, py, qx, qy, 0, 1, whole, absTolerance, 0, panels);
+    }
+
+    private static double adaptive(double px, double py, double qx, double qy, double from, double to,
+                                   double estimate, double tolerance, int depth, int[] panels) {
+        double mid = 0.5 * (from + to);
+        double left = gaussLegendre(px, py, qx, qy, from, mid);
+        double right = gaussLegendre(px, py, qx, qy, mid, to);
+        if (panels != null) {
+            panels[0] += 2;
+        }
+        double refined = left + right;
+        if (depth >= MAX_DEPTH || Math.abs(refined - estimate) <= tolerance) {
+            return refined;
+        }
+        return adaptive(px, py, qx, qy, from, mid, left, 0.5 * tolerance, depth + 1, panels)
+                + adaptive(px, py, qx, qy, mid, to, right, 0.5 * tolerance, depth + 1, panels);
+    }
+
+    private static double gaussLegendre(double px, double py, double qx, double qy, double from, double to) {
+        double half = 0.5 * (to - from);
+        double center = 0.5 * (to + from);
+        double sum = 0;
+        for (int i = 0; i < GL_NODES.length; i++) {
+            double t = center + half * GL_NODES[i];
+            double dx = px + qx * t;
+            double dy = py + qy * t;
+            sum += GL_WEIGHTS[i] * Math.sqrt(dx * dx + dy * dy);
+        }
+        return sum * half;
+    }
+
+    private static double asinh(double x) {
+        double ax = Math.abs(x);
+        return Math.copySign(Math.log(ax + Math.sqrt(ax * ax + 1)), x);
+    }
+}
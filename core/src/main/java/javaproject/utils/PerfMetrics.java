@@ -0,0 +1,281 @@
+package javaproject.utils;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// Opt-in instrumentation: paint times per frame, list model and hit-test
+// costs, and the counters of each path query. Off by default. While off,
+// start() only reads one volatile flag and returns 0, which stop() ignores,
+// so the calls can stay on hot paths. Timers may be fed from several threads.
+//
+//   long started = PerfMetrics.start();
+//   ...
+//   PerfMetrics.FRAME.stop(started);
+public class PerfMetrics implements PerfMetricsMBean {
+    public static final String OBJECT_NAME = "javaproject:type=PerfMetrics";
+
+    public static final Timer FRAME = new Timer("frame");
+    public static final Timer LISTS = new Timer("lists");
+    public static final Timer HIT_TEST = new Timer("hit-test");
+    public static final Timer QUERY = new Timer("query");
+
+    private static volatile boolean enabled;
+    private static boolean registered;
+
+    // The last query; guarded by the class lock
+    private static String lastAlgorithm = "";
+    private static int lastExpanded, lastRelaxed, lastHeapOperations;
+    private static long lastNanos;
+
+    public static boolean isOn() {
+        return enabled;
+    }
+
+    public static void setOn(boolean on) {
+        enabled = on;
+    }
+
+    public static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    public static void recordQuery(String algorithm, AStarPathfinder.PathResult result, long nanos) {
+        if (!enabled) {
+            return;
+        }
+        QUERY.record(nanos);
+        synchronized (PerfMetrics.class) {
+            lastAlgorithm = algorithm;
+            lastExpanded = result.nodesExpanded;
+            lastRelaxed = result.edgesRelaxed;
+            lastHeapOperations = result.heapOperations;
+            lastNanos = nanos;
+        }
+    }
+
+    public static synchronized void resetAll() {
+        FRAME.reset();
+        LISTS.reset();
+        HIT_TEST.reset();
+        QUERY.reset();
+        lastAlgorithm = "";
+        lastExpanded = lastRelaxed = lastHeapOperations = 0;
+        lastNanos = 0;
+    }
+
+    // Makes the metrics visible to jconsole and other JMX clients; safe to call more than once
+    public static synchronized void register() {
+        if (registered) {
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(new PerfMetrics(), new ObjectName(OBJECT_NAME));
+            registered = true;
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // One line per metric, as shown by the editor's overlay
+    public static synchronized String summary() {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("redraws %d, frame mean %.2f ms, max %.2f ms%n",
+                FRAME.count(), FRAME.meanMillis(), FRAME.maxMillis()));
+        text.append("frame ms ").append(FRAME.histogramText()).append(System.lineSeparator());
+        text.append(LISTS.line()).append(System.lineSeparator());
+        text.append(HIT_TEST.line()).append(System.lineSeparator());
+        text.append(QUERY.line()).append(System.lineSeparator());
+        if (QUERY.count() > 0) {
+            text.append(String.format("last %s: %d expanded, %d relaxed, %d heap ops, %.2f ms",
+                    lastAlgorithm, lastExpanded, lastRelaxed, lastHeapOperations, lastNanos / 1e6));
+        } else {
+            text.append("last query: none");
+        }
+        return text.toString();
+    }
+
+    // Count, total, maximum and a coarse histogram of durations
+    public static class Timer {
+        // Upper bounds of the histogram buckets in ms; the last bucket is open-ended
+        public static final double[] BUCKETS_MS = { 0.25, 0.5, 1, 2, 4, 8, 16, 33, 66 };
+
+        public final String name;
+        private long count, totalNanos, maxNanos;
+        private final long[] histogram = new long[BUCKETS_MS.length + 1];
+
+        Timer(String name) {
+            this.name = name;
+        }
+
+        public void stop(long started) {
+            if (started != 0) {
+                record(System.nanoTime() - started);
+            }
+        }
+
+        public synchronized void record(long nanos) {
+            count++;
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+            double millis = nanos / 1e6;
+            int bucket = 0;
+            while (bucket < BUCKETS_MS.length && millis > BUCKETS_MS[bucket]) {
+                bucket++;
+            }
+            histogram[bucket]++;
+        }
+
+        public synchronized long count() {
+            return count;
+        }
+
+        public synchronized double meanMillis() {
+            return count == 0 ? 0 : totalNanos / 1e6 / count;
+        }
+
+        public synchronized double maxMillis() {
+            return maxNanos / 1e6;
+        }
+
+        public synchronized long[] histogram() {
+            return histogram.clone();
+        }
+
+        public synchronized void reset() {
+            count = totalNanos = maxNanos = 0;
+            Arrays.fill(histogram, 0);
+        }
+
+        synchronized String line() {
+            return String.format("%s: %d, mean %.3f ms, max %.3f ms", name, count, meanMillis(), maxMillis());
+        }
+
+        // "<0.25:12 <0.5:3 ... >66:0", skipping empty buckets
+        synchronized String histogramText() {
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < histogram.length; i++) {
+                if (histogram[i] > 0) {
+                    text.append(i < BUCKETS_MS.length ? "<" + trim(BUCKETS_MS[i]) : ">" + trim(BUCKETS_MS[i - 1]))
+                            .append(':').append(histogram[i]).append(' ');
+                }
+            }
+            return text.length() == 0 ? "-" : text.toString().trim();
+        }
+
+        private static String trim(double value) {
+            return value == Math.rint(value) ? String.valueOf((long) value) : String.valueOf(value);
+        }
+    }
+
+    // JMX attributes, backed by the static state above
+
+    @Override
+    public boolean isEnabled() {
+        return isOn();
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        setOn(enabled);
+    }
+
+    @Override
+    public long getRedrawCount() {
+        return FRAME.count();
+    }
+
+    @Override
+    public double getFrameMeanMillis() {
+        return FRAME.meanMillis();
+    }
+
+    @Override
+    public double getFrameMaxMillis() {
+        return FRAME.maxMillis();
+    }
+
+    @Override
+    public long[] getFrameHistogram() {
+        return FRAME.histogram();
+    }
+
+    @Override
+    public long getListUpdateCount() {
+        return LISTS.count();
+    }
+
+    @Override
+    public double getListUpdateMeanMillis() {
+        return LISTS.meanMillis();
+    }
+
+    @Override
+    public long getHitTestCount() {
+        return HIT_TEST.count();
+    }
+
+    @Override
+    public double getHitTestMeanMillis() {
+        return HIT_TEST.meanMillis();
+    }
+
+    @Override
+    public long getQueryCount() {
+        return QUERY.count();
+    }
+
+    @Override
+    public double getQueryMeanMillis() {
+        return QUERY.meanMillis();
+    }
+
+    @Override
+    public String getLastQueryAlgorithm() {
+        synchronized (PerfMetrics.class) {
+            return lastAlgorithm;
+        }
+    }
+
+    @Override
+    public int getLastQueryNodesExpanded() {
+        synchronized (PerfMetrics.class) {
+            return lastExpanded;
+        }
+    }
+
+    @Override
+    public int getLastQueryEdgesRelaxed() {
+        synchronized (PerfMetrics.class) {
+            return lastRelaxed;
+        }
+    }
+
+    @Override
+    public int getLastQueryHeapOperations() {
+        synchronized (PerfMetrics.class) {
+            return lastHeapOperations;
+        }
+    }
+
+    @Override
+    public double getLastQueryMillis() {
+        synchronized (PerfMetrics.class) {
+            return lastNanos / 1e6;
+        }
+    }
+
+    @Override
+    public String getSummary() {
+        return summary();
+    }
+
+    @Override
+    public void reset() {
+        resetAll();
+    }
+}
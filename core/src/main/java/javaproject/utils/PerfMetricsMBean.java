@@ -0,0 +1,43 @@
+package javaproject.utils;
+
+// JMX view of PerfMetrics, registered as javaproject:type=PerfMetrics.
+// Times are in milliseconds; histograms count samples per PerfMetrics.Timer bucket.
+public interface PerfMetricsMBean {
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    long getRedrawCount();
+
+    double getFrameMeanMillis();
+
+    double getFrameMaxMillis();
+
+    long[] getFrameHistogram();
+
+    long getListUpdateCount();
+
+    double getListUpdateMeanMillis();
+
+    long getHitTestCount();
+
+    double getHitTestMeanMillis();
+
+    long getQueryCount();
+
+    double getQueryMeanMillis();
+
+    String getLastQueryAlgorithm();
+
+    int getLastQueryNodesExpanded();
+
+    int getLastQueryEdgesRelaxed();
+
+    int getLastQueryHeapOperations();
+
+    double getLastQueryMillis();
+
+    String getSummary();
+
+    void reset();
+}
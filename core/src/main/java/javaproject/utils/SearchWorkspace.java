@@ -0,0 +1,80 @@
+package javaproject.utils;
+
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.function.IntConsumer;
+
+// Per-thread scratch state for path searches. Arrays are indexed by node id
+// and only grow; a generation stamp marks which entries belong to the
+// current query, so starting a new search is O(1) instead of O(V).
+public class SearchWorkspace {
+    private double[] gScore = new double[0];
+    private int[] parentNode = new int[0];
+    private int[] parentEdge = new int[0];
+    private int[] stamp = new int[0];
+    private int generation;
+    private IntConsumer progress;
+
+    private static final int CHECK_INTERVAL = 1024; // expansions between checkpoints, a power of two
+
+    final IndexedMinHeap openSet = new IndexedMinHeap(0);
+
+    public void reset(int nodeCount) {
+        if (nodeCount > stamp.length) {
+            int capacity = Math.max(nodeCount, stamp.length + (stamp.length >> 1));
+            gScore = Arrays.copyOf(gScore, capacity);
+            parentNode = Arrays.copyOf(parentNode, capacity);
+            parentEdge = Arrays.copyOf(parentEdge, capacity);
+            stamp = Arrays.copyOf(stamp, capacity);
+            openSet.ensureCapacity(capacity);
+        }
+        openSet.clear();
+        if (++generation == Integer.MAX_VALUE) {
+            Arrays.fill(stamp, 0);
+            generation = 1;
+        }
+    }
+
+    // Called with the running expansion count by searches that may run on a
+    // background thread (see checkpoint)
+    public void setProgress(IntConsumer progress) {
+        this.progress = progress;
+    }
+
+    // Searches call this per expanded node: every CHECK_INTERVAL expansions it
+    // reports progress and stops the search if its thread was interrupted
+    void checkpoint(int expanded) {
+        if ((expanded & (CHECK_INTERVAL - 1)) != 0) {
+            return;
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException();
+        }
+        if (progress != null) {
+            progress.accept(expanded);
+        }
+    }
+
+    public boolean visited(int node) {
+        return stamp[node] == generation;
+    }
+
+    public double gScore(int node) {
+        return stamp[node] == generation ? gScore[node] : Double.POSITIVE_INFINITY;
+    }
+
+    public int parentNode(int node) {
+        return stamp[node] == generation ? parentNode[node] : -1;
+    }
+
+    public int parentEdge(int node) {
+        return stamp[node] == generation ? parentEdge[node] : -1;
+    }
+
+    public void update(int node, double g, int fromNode, int viaEdge) {
+        gScore[node] = g;
+        parentNode[node] = fromNode;
+        parentEdge[node] = viaEdge;
+        stamp[node] = generation;
+    }
+}
@@ -0,0 +1,428 @@
+package javaproject.utils;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javaproject.models.Edge;
+import javaproject.models.Node;
+
+// Uniform grid over canvas coordinates. Nodes live in the cell containing
+// their centre, edges in every cell overlapped by their bounding box (the
+// convex hull of a quadratic curve bounds it). Edges spanning too many
+// cells are kept in a short separate list instead. Cells are found through a
+// table keyed by primitive longs, so probing a cell does not allocate.
+public class SpatialIndex {
+    private static final int MAX_EDGE_CELLS = 256;
+    private static final int CURVE_SEGMENTS = 16;
+
+    private static class Cell {
+        final List<Node> nodes = new ArrayList<>(4);
+        final List<Edge> edges = new ArrayList<>(4);
+    }
+
+    private final double cellSize;
+    private final CellTable cells = new CellTable();
+    private final Map<Edge, int[]> edgeCells = new IdentityHashMap<>(); // min/max cell column and row
+    private final List<Edge> largeEdges = new ArrayList<>();
+    private final int[] scratchBounds = new int[4];
+
+    public SpatialIndex(double cellSize) {
+        this.cellSize = cellSize;
+    }
+
+    public void clear() {
+        cells.clear();
+        edgeCells.clear();
+        largeEdges.clear();
+    }
+
+    public void insertNode(Node node) {
+        cellFor(cellOf(node.x), cellOf(node.y)).nodes.add(node);
+    }
+
+    public void removeNode(Node node) {
+        removeNode(node, node.x, node.y);
+    }
+
+    // Call after the node has moved, with the position it was indexed at
+    public void moveNode(Node node, double oldX, double oldY) {
+        int oldCx = cellOf(oldX), oldCy = cellOf(oldY);
+        if (oldCx != cellOf(node.x) || oldCy != cellOf(node.y)) {
+            removeNode(node, oldX, oldY);
+            insertNode(node);
+        }
+    }
+
+    public void insertEdge(Edge edge) {
+        int[] bounds = new int[4];
+        edgeBounds(edge, bounds);
+        edgeCells.put(edge, bounds);
+        if (isLarge(bounds)) {
+            largeEdges.add(edge);
+            return;
+        }
+        for (int cx = bounds[0]; cx <= bounds[2]; cx++) {
+            for (int cy = bounds[1]; cy <= bounds[3]; cy++) {
+                cellFor(cx, cy).edges.add(edge);
+            }
+        }
+    }
+
+    public void removeEdge(Edge edge) {
+        int[] bounds = edgeCells.remove(edge);
+        if (bounds == null) {
+            return;
+        }
+        if (isLarge(bounds)) {
+            largeEdges.remove(edge);
+            return;
+        }
+        for (int cx = bounds[0]; cx <= bounds[2]; cx++) {
+            for (int cy = bounds[1]; cy <= bounds[3]; cy++) {
+                Cell cell = cells.get(cx, cy);
+                if (cell != null) {
+                    removeFrom(cell.edges, edge);
+                    dropIfEmpty(cx, cy, cell);
+                }
+            }
+        }
+    }
+
+    // Re-index after an endpoint or the control point moved
+    public void updateEdge(Edge edge) {
+        int[] bounds = edgeCells.get(edge);
+        if (bounds != null) {
+            edgeBounds(edge, scratchBounds);
+            if (bounds[0] == scratchBounds[0] && bounds[1] == scratchBounds[1]
+                    && bounds[2] == scratchBounds[2] && bounds[3] == scratchBounds[3]) {
+                return; // still covers the same cells
+            }
+        }
+        removeEdge(edge);
+        insertEdge(edge);
+    }
+
+    // Closest node whose centre lies within radius of (x, y)
+    public Node nodeAt(double x, double y, double radius) {
+        Node closest = null;
+        double best = radius * radius;
+        for (int cx = cellOf(x - radius); cx <= cellOf(x + radius); cx++) {
+            for (int cy = cellOf(y - radius); cy <= cellOf(y + radius); cy++) {
+                Cell cell = cells.get(cx, cy);
+                if (cell == null) {
+                    continue;
+                }
+                for (int i = 0; i < cell.nodes.size(); i++) {
+                    Node node = cell.nodes.get(i);
+                    double dx = x - node.x;
+                    double dy = y - node.y;
+                    double d = dx * dx + dy * dy;
+                    if (d <= best) {
+                        best = d;
+                        closest = node;
+                    }
+                }
+            }
+        }
+        return closest;
+    }
+
+    // Closest edge passing within tolerance of (x, y)
+    public Edge edgeAt(double x, double y, double tolerance) {
+        Edge closest = null;
+        double best = tolerance;
+        for (int cx = cellOf(x - tolerance); cx <= cellOf(x + tolerance); cx++) {
+            for (int cy = cellOf(y - tolerance); cy <= cellOf(y + tolerance); cy++) {
+                Cell cell = cells.get(cx, cy);
+                if (cell == null) {
+                    continue;
+                }
+                for (int i = 0; i < cell.edges.size(); i++) {
+                    Edge edge = cell.edges.get(i);
+                    double d = distanceToEdge(edge, x, y);
+                    if (d <= best) {
+                        best = d;
+                        closest = edge;
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < largeEdges.size(); i++) {
+            Edge edge = largeEdges.get(i);
+            double d = distanceToEdge(edge, x, y);
+            if (d <= best) {
+                best = d;
+                closest = edge;
+            }
+        }
+        return closest;
+    }
+
+    // Nodes whose centre lies inside the rectangle
+    public void queryNodes(double minX, double minY, double maxX, double maxY, List<Node> out) {
+        int minCx = cellOf(minX), minCy = cellOf(minY), maxCx = cellOf(maxX), maxCy = cellOf(maxY);
+        if (spansMoreThanIndexed(minCx, minCy, maxCx, maxCy)) {
+            // Zoomed far out: walking the occupied cells is cheaper than probing empty ones
+            for (int slot = 0; slot < cells.capacity(); slot++) {
+                Cell cell = cells.cellAt(slot);
+                if (cell != null) {
+                    int cx = cells.columnAt(slot), cy = cells.rowAt(slot);
+                    if (cx >= minCx && cx <= maxCx && cy >= minCy && cy <= maxCy) {
+                        out.addAll(cell.nodes);
+                    }
+                }
+            }
+            return;
+        }
+        for (int cx = minCx; cx <= maxCx; cx++) {
+            for (int cy = minCy; cy <= maxCy; cy++) {
+                Cell cell = cells.get(cx, cy);
+                if (cell != null) {
+                    out.addAll(cell.nodes);
+                }
+            }
+        }
+    }
+
+    // Edges whose bounding box overlaps the rectangle, each reported once
+    public void queryEdges(double minX, double minY, double maxX, double maxY, List<Edge> out) {
+        int minCx = cellOf(minX), minCy = cellOf(minY), maxCx = cellOf(maxX), maxCy = cellOf(maxY);
+        if (spansMoreThanIndexed(minCx, minCy, maxCx, maxCy)) {
+            for (int slot = 0; slot < cells.capacity(); slot++) {
+                Cell cell = cells.cellAt(slot);
+                if (cell != null) {
+                    int cx = cells.columnAt(slot), cy = cells.rowAt(slot);
+                    if (cx >= minCx && cx <= maxCx && cy >= minCy && cy <= maxCy) {
+                        collectEdges(cell, cx, cy, minCx, minCy, out);
+                    }
+                }
+            }
+        } else {
+            for (int cx = minCx; cx <= maxCx; cx++) {
+                for (int cy = minCy; cy <= maxCy; cy++) {
+                    Cell cell = cells.get(cx, cy);
+                    if (cell != null) {
+                        collectEdges(cell, cx, cy, minCx, minCy, out);
+                    }
+                }
+            }
+        }
+        for (Edge edge : largeEdges) {
+            int[] bounds = edgeCells.get(edge);
+            if (bounds[0] <= maxCx && bounds[2] >= minCx && bounds[1] <= maxCy && bounds[3] >= minCy) {
+                out.add(edge);
+            }
+        }
+    }
+
+    public static double distanceToEdge(Edge edge, double x, double y) {
+        if (!edge.curved || edge.controlPoint == null) {
+            return distanceToSegment(x, y, edge.node1.x, edge.node1.y, edge.node2.x, edge.node2.y);
+        }
+        // Approximate the curve by a short polyline
+        double best = Double.POSITIVE_INFINITY;
+        double prevX = edge.node1.x;
+        double prevY = edge.node1.y;
+        for (int i = 1; i <= CURVE_SEGMENTS; i++) {
+            double t = i / (double) CURVE_SEGMENTS;
+            double u = 1 - t;
+            double cx = u * u * edge.node1.x + 2 * u * t * edge.controlPoint.x + t * t * edge.node2.x;
+            double cy = u * u * edge.node1.y + 2 * u * t * edge.controlPoint.y + t * t * edge.node2.y;
+            best = Math.min(best, distanceToSegment(x, y, prevX, prevY, cx, cy));
+            prevX = cx;
+            prevY = cy;
+        }
+        return best;
+    }
+
+    private static double distanceToSegment(double x, double y, double x1, double y1, double x2, double y2) {
+        double dx = x2 - x1;
+        double dy = y2 - y1;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared == 0 ? 0 : ((x - x1) * dx + (y - y1) * dy) / lengthSquared;
+        t = Math.max(0, Math.min(1, t));
+        return Math.hypot(x - (x1 + t * dx), y - (y1 + t * dy));
+    }
+
+    // An edge is reported from the first cell where its bounds and the query overlap
+    private void collectEdges(Cell cell, int cx, int cy, int minCx, int minCy, List<Edge> out) {
+        for (Edge edge : cell.edges) {
+            int[] bounds = edgeCells.get(edge);
+            if (cx == Math.max(bounds[0], minCx) && cy == Math.max(bounds[1], minCy)) {
+                out.add(edge);
+            }
+        }
+    }
+
+    private boolean spansMoreThanIndexed(int minCx, int minCy, int maxCx, int maxCy) {
+        return (long) (maxCx - minCx + 1) * (maxCy - minCy + 1) > cells.capacity();
+    }
+
+    private void removeNode(Node node, double x, double y) {
+        int cx = cellOf(x), cy = cellOf(y);
+        Cell cell = cells.get(cx, cy);
+        if (cell != null) {
+            removeFrom(cell.nodes, node);
+            dropIfEmpty(cx, cy, cell);
+        }
+    }
+
+    private void edgeBounds(Edge edge, int[] bounds) {
+        double minX = Math.min(edge.node1.x, edge.node2.x);
+        double minY = Math.min(edge.node1.y, edge.node2.y);
+        double maxX = Math.max(edge.node1.x, edge.node2.x);
+        double maxY = Math.max(edge.node1.y, edge.node2.y);
+        if (edge.curved && edge.controlPoint != null) {
+            minX = Math.min(minX, edge.controlPoint.x);
+            minY = Math.min(minY, edge.controlPoint.y);
+            maxX = Math.max(maxX, edge.controlPoint.x);
+            maxY = Math.max(maxY, edge.controlPoint.y);
+        }
+        bounds[0] = cellOf(minX);
+        bounds[1] = cellOf(minY);
+        bounds[2] = cellOf(maxX);
+        bounds[3] = cellOf(maxY);
+    }
+
+    private static boolean isLarge(int[] bounds) {
+        return (long) (bounds[2] - bounds[0] + 1) * (bounds[3] - bounds[1] + 1) > MAX_EDGE_CELLS;
+    }
+
+    private Cell cellFor(int cx, int cy) {
+        Cell cell = cells.get(cx, cy);
+        if (cell == null) {
+            cell = new Cell();
+            cells.put(cx, cy, cell);
+        }
+        return cell;
+    }
+
+    private void dropIfEmpty(int cx, int cy, Cell cell) {
+        if (cell.nodes.isEmpty() && cell.edges.isEmpty()) {
+            cells.remove(cx, cy);
+        }
+    }
+
+    private static <T> void removeFrom(List<T> list, T item) {
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i) == item) {
+                list.set(i, list.get(list.size() - 1));
+                list.remove(list.size() - 1);
+                return;
+            }
+        }
+    }
+
+    private int cellOf(double coordinate) {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    private static long key(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xffffffffL);
+    }
+
+    // Open addressing with linear probing over parallel key and cell arrays,
+    // at most half full. Removal shifts the following entries of the run back
+    // instead of leaving tombstones, so probes stay short under churn.
+    private static class CellTable {
+        private long[] keys = new long[64];
+        private Cell[] values = new Cell[64];
+        private int size;
+
+        int capacity() {
+            return values.length;
+        }
+
+        Cell cellAt(int slot) {
+            return values[slot];
+        }
+
+        int columnAt(int slot) {
+            return (int) (keys[slot] >> 32);
+        }
+
+        int rowAt(int slot) {
+            return (int) keys[slot];
+        }
+
+        Cell get(int cx, int cy) {
+            long key = key(cx, cy);
+            int mask = values.length - 1;
+            for (int slot = slot(key, mask); values[slot] != null; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+            }
+            return null;
+        }
+
+        // The key must not be present
+        void put(int cx, int cy, Cell cell) {
+            if (2 * (size + 1) > values.length) {
+                grow();
+            }
+            insert(key(cx, cy), cell);
+            size++;
+        }
+
+        void remove(int cx, int cy) {
+            long key = key(cx, cy);
+            int mask = values.length - 1;
+            int slot = slot(key, mask);
+            while (values[slot] != null && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (values[slot] == null) {
+                return;
+            }
+            values[slot] = null;
+            size--;
+            // Move back any later entry of the run whose home slot is at or before the hole
+            int hole = slot;
+            for (int next = (hole + 1) & mask; values[next] != null; next = (next + 1) & mask) {
+                int home = slot(keys[next], mask);
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    keys[hole] = keys[next];
+                    values[hole] = values[next];
+                    values[next] = null;
+                    hole = next;
+                }
+            }
+        }
+
+        void clear() {
+            keys = new long[64];
+            values = new Cell[64];
+            size = 0;
+        }
+
+        private void insert(long key, Cell cell) {
+            int mask = values.length - 1;
+            int slot = slot(key, mask);
+            while (values[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            values[slot] = cell;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            Cell[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new Cell[oldValues.length * 2];
+            for (int i = 0; i < oldValues.length; i++) {
+                if (oldValues[i] != null) {
+                    insert(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static int slot(long key, int mask) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package javaproject.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javaproject.models.AdjacencyIndex;
+import javaproject.models.Edge;
+import javaproject.models.Node;
+
+// Shortest distances between every pair of special nodes, plus for each
+// special node t the shortest-path tree rooted at t: tree[v] is the edge
+// that takes v one step closer to t, i.e. the next hop from any node
+// towards t. Built on one AdjacencyIndex snapshot with a one-to-all
+// Dijkstra per special node, run in parallel.
+public class SpecialRouteTable {
+    // Trees take 4 bytes per node per special node; above this many entries
+    // only the distances are kept and paths are left to A*
+    private static final long MAX_TREE_ENTRIES = 1L << 24;
+
+    public final AdjacencyIndex index;
+    private final int[] specials; // node ids
+    private final int[] rows; // node id -> row, -1 for nodes that are not special
+    private final double[][] distance;
+    private final int[][] trees; // per row, or null when over the memory budget
+
+    private SpecialRouteTable(AdjacencyIndex index, int[] specials, double[][] distance, int[][] trees) {
+        this.index = index;
+        this.specials = specials;
+        this.distance = distance;
+        this.trees = trees;
+        this.rows = new int[index.nodeCount()];
+        Arrays.fill(rows, -1);
+        for (int i = 0; i < specials.length; i++) {
+            rows[specials[i]] = i;
+        }
+    }
+
+    // Reuses the rows of previous when it was built on the same snapshot, so a
+    // change to the special set only searches from the newly special nodes.
+    // Returns null if cancelled.
+    public static SpecialRouteTable compute(AdjacencyIndex index, int[] specials, SpecialRouteTable previous,
+                                            ForkJoinPool pool, AtomicBoolean cancelled) {
+        int k = specials.length;
+        boolean keepTrees = (long) k * index.nodeCount() <= MAX_TREE_ENTRIES;
+        boolean reuse = previous != null && previous.index == index && (previous.trees != null || !keepTrees);
+
+        // Fresh searches for every special node the previous table lacks
+        List<Integer> fresh = new ArrayList<>();
+        for (int i = 0; i < k; i++) {
+            if (!reuse || previous.rows[specials[i]] < 0) {
+                fresh.add(i);
+            }
+        }
+        double[][] distance = new double[k][];
+        int[][] trees = keepTrees ? new int[k][] : null;
+        // Workspaces belong to this job, so the pool's threads do not keep them
+        ConcurrentLinkedQueue<SearchWorkspace> workspaces = new ConcurrentLinkedQueue<>();
+        try {
+            pool.submit(() -> fresh.parallelStream().forEach(i -> {
+                if (cancelled.get()) {
+                    return;
+                }
+                SearchWorkspace workspace = workspaces.poll();
+                if (workspace == null) {
+                    workspace = new SearchWorkspace();
+                }
+                dijkstra(index, specials[i], workspace);
+                double[] row = new double[k];
+                for (int j = 0; j < k; j++) {
+                    row[j] = workspace.gScore(specials[j]);
+                }
+                distance[i] = row;
+                if (trees != null) {
+                    int[] tree = new int[index.nodeCount()];
+                    for (int v = 0; v < tree.length; v++) {
+                        tree[v] = workspace.parentEdge(v);
+                    }
+                    trees[i] = tree;
+                }
+                workspaces.offer(workspace);
+            })).get();
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+        if (cancelled.get()) {
+            return null;
+        }
+
+        // Kept rows: old distances to old specials, and the graph is undirected,
+        // so distances to new specials come from the new specials' own searches
+        boolean[] isFresh = new boolean[k];
+        for (int i : fresh) {
+            isFresh[i] = true;
+        }
+        for (int i = 0; i < k; i++) {
+            if (isFresh[i]) {
+                continue;
+            }
+            int oldRow = previous.rows[specials[i]];
+            double[] row = new double[k];
+            for (int j = 0; j < k; j++) {
+                row[j] = isFresh[j] ? distance[j][i] : previous.distance[oldRow][previous.rows[specials[j]]];
+            }
+            distance[i] = row;
+            if (trees != null) {
+                trees[i] = previous.trees[oldRow];
+            }
+        }
+        return new SpecialRouteTable(index, specials, distance, trees);
+    }
+
+    public boolean sameSpecials(int[] other) {
+        return Arrays.equals(specials, other);
+    }
+
+    // Follows the next hops from one special node to the other. Only valid
+    // while index is the graph's current adjacency; null if not answerable.
+    public AStarPathfinder.PathResult path(Node from, Node to) {
+        int i = row(from.id);
+        int j = row(to.id);
+        if (i < 0 || j < 0 || trees == null) {
+            return null;
+        }
+        if (Double.isInfinite(distance[i][j])) {
+            return new AStarPathfinder.PathResult(new ArrayList<>(), new ArrayList<>(), 0, 0);
+        }
+
+        int[] tree = trees[j];
+        List<Node> path = new ArrayList<>();
+        List<Edge> edges = new ArrayList<>();
+        int v = from.id;
+        path.add(index.nodes[v]);
+        while (v != to.id) {
+            Edge edge = index.edges[tree[v]];
+            v = edge.node1.id == v ? edge.node2.id : edge.node1.id;
+            edges.add(edge);
+            path.add(index.nodes[v]);
+        }
+        return new AStarPathfinder.PathResult(path, edges, distance[i][j], 0);
+    }
+
+    private int row(int id) {
+        return id >= 0 && id < rows.length ? rows[id] : -1;
+    }
+
+    public int size() {
+        return specials.length;
+    }
+
+    // One-to-all search; afterwards workspace holds the distances and parent edges
+    static void dijkstra(AdjacencyIndex index, int source, SearchWorkspace workspace) {
+        workspace.reset(index.nodeCount());
+        IndexedMinHeap openSet = workspace.openSet;
+        workspace.update(source, 0.0, -1, -1);
+        openSet.insert(source, 0.0);
+        while (!openSet.isEmpty()) {
+            int current = openSet.poll();
+            double currentG = workspace.gScore(current);
+            for (int i = index.offsets[current]; i < index.offsets[current + 1]; i++) {
+                int neighbor = index.targets[i];
+                double g = currentG + index.weights[i];
+                if (g < workspace.gScore(neighbor)) {
+                    workspace.update(neighbor, g, current, index.edgeIds[i]);
+                    openSet.insertOrDecrease(neighbor, g);
+                }
+            }
+        }
+    }
+}
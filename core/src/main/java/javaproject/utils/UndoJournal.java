@@ -0,0 +1,386 @@
+package javaproject.utils;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import javaproject.models.ControlPoint;
+import javaproject.models.Edge;
+import javaproject.models.Graph;
+import javaproject.models.Node;
+
+// Undo/redo history for one graph, kept as small deltas instead of map
+// snapshots. Edits go through the journal, which applies them to the graph
+// and records what is needed to reverse them: old and new positions, the old
+// label, or the removed node or edge itself (its control point and, for a
+// node, its incident edges come with it). Deltas hold the Node and Edge
+// objects, not ids, since ids change when something else is removed.
+//
+// Undoing or redoing one change costs what the matching Graph call costs,
+// O(1) or O(degree), never O(map size). The moves of one drag, from the first
+// move until endDrag(), coalesce into a single change. When the estimated
+// size of the history passes the cap, the oldest changes are dropped.
+public class UndoJournal {
+    public static final long DEFAULT_MAX_BYTES = 16L << 20;
+
+    // Rough heap cost of a delta and of what it keeps alive
+    private static final int DELTA_BYTES = 48;
+    private static final int NODE_BYTES = 64;
+    private static final int EDGE_BYTES = 96; // including a control point
+
+    private final Graph graph;
+    private final long maxBytes;
+    private final Deque<Change> undo = new ArrayDeque<>();
+    private final Deque<Change> redo = new ArrayDeque<>();
+    private long bytes; // estimated size of both stacks
+    private boolean dragging; // the top change may still absorb moves
+
+    public UndoJournal(Graph graph, long maxBytes) {
+        this.graph = graph;
+        this.maxBytes = maxBytes;
+    }
+
+    public UndoJournal(Graph graph) {
+        this(graph, DEFAULT_MAX_BYTES);
+    }
+
+    public void addNode(Node node) {
+        graph.addNode(node);
+        record(new NodeAdded(node));
+    }
+
+    public void removeNode(Node node) {
+        if (!graph.contains(node)) {
+            return;
+        }
+        Edge[] incident = graph.incidentEdges(node).toArray(new Edge[0]);
+        graph.removeNode(node);
+        record(new NodeRemoved(node, incident));
+    }
+
+    public void addEdge(Edge edge) {
+        graph.addEdge(edge);
+        record(new EdgeAdded(edge));
+    }
+
+    public void removeEdge(Edge edge) {
+        if (!graph.contains(edge)) {
+            return;
+        }
+        graph.removeEdge(edge);
+        record(new EdgeRemoved(edge));
+    }
+
+    public void moveNode(Node node, double x, double y) {
+        Change top = undo.peek();
+        if (dragging && top instanceof NodeMoved && ((NodeMoved) top).node == node) {
+            ((NodeMoved) top).toX = x;
+            ((NodeMoved) top).toY = y;
+        } else {
+            record(new NodeMoved(node, node.x, node.y, x, y));
+            dragging = true;
+        }
+        graph.moveNode(node, x, y);
+    }
+
+    public void moveControlPoint(Edge edge, double x, double y) {
+        Change top = undo.peek();
+        if (dragging && top instanceof ControlMoved && ((ControlMoved) top).edge == edge) {
+            ((ControlMoved) top).toX = x;
+            ((ControlMoved) top).toY = y;
+        } else {
+            ControlPoint control = edge.controlPoint;
+            record(new ControlMoved(edge, control.x, control.y, x, y));
+            dragging = true;
+        }
+        graph.moveControlPoint(edge, x, y);
+    }
+
+    public void renameNode(Node node, String label, boolean isSpecial) {
+        record(new Renamed(node, node.label, node.isSpecial, label, isSpecial));
+        graph.renameNode(node, label, isSpecial);
+    }
+
+    // Ends the current drag: the next move starts a new change
+    public void endDrag() {
+        dragging = false;
+    }
+
+    public boolean canUndo() {
+        return !undo.isEmpty();
+    }
+
+    public boolean canRedo() {
+        return !redo.isEmpty();
+    }
+
+    // Reverts the latest change and returns it, or null if there is none
+    public Change undo() {
+        dragging = false;
+        Change change = undo.poll();
+        if (change != null) {
+            change.revert(graph);
+            redo.push(change);
+        }
+        return change;
+    }
+
+    // Re-applies the latest undone change and returns it, or null if there is none
+    public Change redo() {
+        dragging = false;
+        Change change = redo.poll();
+        if (change != null) {
+            change.apply(graph);
+            undo.push(change);
+        }
+        return change;
+    }
+
+    // Forgets the history, e.g. after the graph was cleared behind the journal's back
+    public void clear() {
+        undo.clear();
+        redo.clear();
+        bytes = 0;
+        dragging = false;
+    }
+
+    public int size() {
+        return undo.size() + redo.size();
+    }
+
+    public long estimatedBytes() {
+        return bytes;
+    }
+
+    private void record(Change change) {
+        dragging = false;
+        for (Change dropped : redo) {
+            bytes -= dropped.bytes;
+        }
+        redo.clear();
+        undo.push(change);
+        bytes += change.bytes;
+        while (bytes > maxBytes && undo.size() > 1) {
+            bytes -= undo.removeLast().bytes;
+        }
+    }
+
+    private static int labelBytes(String label) {
+        return label == null ? 0 : 40 + 2 * label.length();
+    }
+
+    // One recorded edit. apply() redoes it, revert() undoes it.
+    public abstract static class Change {
+        final int bytes;
+
+        Change(int bytes) {
+            this.bytes = bytes;
+        }
+
+        abstract void apply(Graph graph);
+
+        abstract void revert(Graph graph);
+
+        // Whether node labels or special flags change, which the route choices depend on
+        public boolean changesLabels() {
+            return false;
+        }
+
+        public abstract String describe();
+    }
+
+    private static class NodeAdded extends Change {
+        final Node node;
+
+        NodeAdded(Node node) {
+            super(DELTA_BYTES + NODE_BYTES + labelBytes(node.label));
+            this.node = node;
+        }
+
+        @Override
+        void apply(Graph graph) {
+            graph.addNode(node);
+        }
+
+        @Override
+        void revert(Graph graph) {
+            graph.removeNode(node);
+        }
+
+        @Override
+        public String describe() {
+            return "add node " + node.label;
+        }
+    }
+
+    private static class NodeRemoved extends Change {
+        final Node node;
+        final Edge[] incident;
+
+        NodeRemoved(Node node, Edge[] incident) {
+            super(DELTA_BYTES + NODE_BYTES + labelBytes(node.label) + incident.length * (8 + EDGE_BYTES));
+            this.node = node;
+            this.incident = incident;
+        }
+
+        @Override
+        void apply(Graph graph) {
+            graph.removeNode(node);
+        }
+
+        @Override
+        void revert(Graph graph) {
+            graph.addNode(node);
+            for (Edge edge : incident) {
+                graph.addEdge(edge);
+            }
+        }
+
+        @Override
+        public String describe() {
+            return "delete node " + node.label;
+        }
+    }
+
+    private static class EdgeAdded extends Change {
+        final Edge edge;
+
+        EdgeAdded(Edge edge) {
+            super(DELTA_BYTES + EDGE_BYTES);
+            this.edge = edge;
+        }
+
+        @Override
+        void apply(Graph graph) {
+            graph.addEdge(edge);
+        }
+
+        @Override
+        void revert(Graph graph) {
+            graph.removeEdge(edge);
+        }
+
+        @Override
+        public String describe() {
+            return "add edge " + edge.node1.label + " - " + edge.node2.label;
+        }
+    }
+
+    private static class EdgeRemoved extends Change {
+        final Edge edge;
+
+        EdgeRemoved(Edge edge) {
+            super(DELTA_BYTES + EDGE_BYTES);
+            this.edge = edge;
+        }
+
+        @Override
+        void apply(Graph graph) {
+            graph.removeEdge(edge);
+        }
+
+        @Override
+        void revert(Graph graph) {
+            graph.addEdge(edge);
+        }
+
+        @Override
+        public String describe() {
+            return "delete edge " + edge.node1.label + " - " + edge.node2.label;
+        }
+    }
+
+    private static class NodeMoved extends Change {
+        final Node node;
+        final double fromX, fromY;
+        double toX, toY;
+
+        NodeMoved(Node node, double fromX, double fromY, double toX, double toY) {
+            super(DELTA_BYTES + 32);
+            this.node = node;
+            this.fromX = fromX;
+            this.fromY = fromY;
+            this.toX = toX;
+            this.toY = toY;
+        }
+
+        @Override
+        void apply(Graph graph) {
+            graph.moveNode(node, toX, toY);
+        }
+
+        @Override
+        void revert(Graph graph) {
+            graph.moveNode(node, fromX, fromY);
+        }
+
+        @Override
+        public String describe() {
+            return "move node " + node.label;
+        }
+    }
+
+    private static class ControlMoved extends Change {
+        final Edge edge;
+        final double fromX, fromY;
+        double toX, toY;
+
+        ControlMoved(Edge edge, double fromX, double fromY, double toX, double toY) {
+            super(DELTA_BYTES + 32);
+            this.edge = edge;
+            this.fromX = fromX;
+            this.fromY = fromY;
+            this.toX = toX;
+            this.toY = toY;
+        }
+
+        @Override
+        void apply(Graph graph) {
+            graph.moveControlPoint(edge, toX, toY);
+        }
+
+        @Override
+        void revert(Graph graph) {
+            graph.moveControlPoint(edge, fromX, fromY);
+        }
+
+        @Override
+        public String describe() {
+            return "move curve " + edge.node1.label + " - " + edge.node2.label;
+        }
+    }
+
+    private static class Renamed extends Change {
+        final Node node;
+        final String fromLabel, toLabel;
+        final boolean fromSpecial, toSpecial;
+
+        Renamed(Node node, String fromLabel, boolean fromSpecial, String toLabel, boolean toSpecial) {
+            super(DELTA_BYTES + labelBytes(fromLabel) + labelBytes(toLabel));
+            this.node = node;
+            this.fromLabel = fromLabel;
+            this.fromSpecial = fromSpecial;
+            this.toLabel = toLabel;
+            this.toSpecial = toSpecial;
+        }
+
+        @Override
+        void apply(Graph graph) {
+            graph.renameNode(node, toLabel, toSpecial);
+        }
+
+        @Override
+        void revert(Graph graph) {
+            graph.renameNode(node, fromLabel, fromSpecial);
+        }
+
+        @Override
+        public boolean changesLabels() {
+            return true;
+        }
+
+        @Override
+        public String describe() {
+            return "rename " + fromLabel + " to " + toLabel;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package javaproject.models;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class GraphTest {
+    @Test
+    void everyEditBumpsTheModCount() {
+        Graph graph = new Graph();
+        Node a = new Node(0, 0, "A", false);
+        Node b = new Node(10, 0, "B", false);
+        Edge edge = new Edge(a, b, true, new ControlPoint(5, 5));
+        Runnable[] edits = {
+            () -> graph.addNode(a),
+            () -> graph.addNode(b),
+            () -> graph.addEdge(edge),
+            () -> graph.moveNode(a, 1, 1),
+            () -> graph.moveControlPoint(edge, 6, 6),
+            () -> graph.renameNode(b, "C", true),
+            () -> graph.removeEdge(edge),
+            () -> graph.removeNode(a),
+            () -> graph.clear(),
+        };
+        for (Runnable edit : edits) {
+            int before = graph.getModCount();
+            edit.run();
+            assertTrue(graph.getModCount() > before);
+        }
+    }
+
+    @Test
+    void editsOfNodesOutsideTheGraphDoNotCount() {
+        Graph graph = new Graph();
+        Node outside = new Node(0, 0, "A", false);
+        graph.moveNode(outside, 1, 1);
+        graph.renameNode(outside, "B", false);
+        graph.removeNode(outside);
+        assertEquals(0, graph.getModCount());
+    }
+}
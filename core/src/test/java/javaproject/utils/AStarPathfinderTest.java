@@ -0,0 +1,140 @@
+package javaproject.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+import javaproject.models.AdjacencyIndex;
+import javaproject.models.Edge;
+import javaproject.models.Graph;
+import javaproject.models.Node;
+
+class AStarPathfinderTest {
+    private final SearchWorkspace forward = new SearchWorkspace();
+    private final SearchWorkspace backward = new SearchWorkspace();
+
+    @Test
+    void bidirectionalCostsMatchUnidirectional() {
+        for (String layout : MapGenerator.LAYOUTS) {
+            AdjacencyIndex index = MapGenerator.generate(layout, 2000, MapGenerator.DEFAULT_SEED).adjacency();
+            LandmarkTable landmarks = LandmarkTable.compute(index, LandmarkTable.DEFAULT_LANDMARKS,
+                    ForkJoinPool.commonPool(), new AtomicBoolean());
+            ContractionHierarchy hierarchy = ContractionHierarchy.build(index, new AtomicBoolean());
+            Random random = new Random(3);
+            for (int q = 0; q < 200; q++) {
+                int start = random.nextInt(index.nodeCount());
+                int goal = random.nextInt(index.nodeCount());
+                AStarPathfinder.PathResult expected = AStarPathfinder.findPath(index, start, goal, forward, null);
+                String query = layout + " " + start + " -> " + goal;
+                assertSameCost(index, start, goal, expected,
+                        AStarPathfinder.findPath(index, start, goal, forward, landmarks), query + " ALT");
+                assertSameCost(index, start, goal, expected,
+                        AStarPathfinder.findPathBidirectional(index, start, goal, forward, backward, null),
+                        query + " bidirectional");
+                assertSameCost(index, start, goal, expected,
+                        AStarPathfinder.findPathBidirectional(index, start, goal, forward, backward, landmarks),
+                        query + " bidirectional ALT");
+                assertSameCost(index, start, goal, expected, hierarchy.findPath(start, goal, forward, backward),
+                        query + " hierarchy");
+            }
+        }
+    }
+
+    @Test
+    void startEqualsGoal() {
+        AdjacencyIndex index = MapGenerator.generate(MapGenerator.ROAD, 500, MapGenerator.DEFAULT_SEED).adjacency();
+        LandmarkTable landmarks = LandmarkTable.compute(index, 4, ForkJoinPool.commonPool(), new AtomicBoolean());
+        for (LandmarkTable table : new LandmarkTable[] { null, landmarks }) {
+            AStarPathfinder.PathResult result =
+                    AStarPathfinder.findPathBidirectional(index, 42, 42, forward, backward, table);
+            assertEquals(1, result.path.size());
+            assertSame(index.nodes[42], result.path.get(0));
+            assertTrue(result.edges.isEmpty());
+            assertEquals(0.0, result.totalDistance);
+        }
+        AStarPathfinder.PathResult result =
+                ContractionHierarchy.build(index, new AtomicBoolean()).findPath(42, 42, forward, backward);
+        assertEquals(1, result.path.size());
+        assertSame(index.nodes[42], result.path.get(0));
+        assertEquals(0.0, result.totalDistance);
+    }
+
+    @Test
+    void unreachableGoal() {
+        Graph graph = new Graph();
+        Node a = new Node(0, 0, "A", false);
+        Node b = new Node(100, 0, "B", false);
+        Node c = new Node(300, 0, "C", false);
+        graph.addNode(a);
+        graph.addNode(b);
+        graph.addNode(c);
+        graph.addEdge(new Edge(a, b, false, null));
+        AdjacencyIndex index = graph.adjacency();
+        LandmarkTable landmarks = LandmarkTable.compute(index, 2, ForkJoinPool.commonPool(), new AtomicBoolean());
+        for (LandmarkTable table : new LandmarkTable[] { null, landmarks }) {
+            AStarPathfinder.PathResult result =
+                    AStarPathfinder.findPathBidirectional(index, a.id, c.id, forward, backward, table);
+            assertTrue(result.path.isEmpty());
+            assertTrue(result.edges.isEmpty());
+            assertTrue(AStarPathfinder.findPath(index, a.id, c.id, forward, table).path.isEmpty());
+        }
+        ContractionHierarchy hierarchy = ContractionHierarchy.build(index, new AtomicBoolean());
+        assertTrue(hierarchy.findPath(a.id, c.id, forward, backward).path.isEmpty());
+        assertEquals(1, hierarchy.findPath(a.id, b.id, forward, backward).edges.size());
+    }
+
+    @Test
+    void singleEdge() {
+        Graph graph = new Graph();
+        Node a = new Node(0, 0, "A", false);
+        Node b = new Node(30, 40, "B", false);
+        graph.addNode(a);
+        graph.addNode(b);
+        Edge edge = new Edge(a, b, false, null);
+        graph.addEdge(edge);
+        AdjacencyIndex index = graph.adjacency();
+        LandmarkTable landmarks = LandmarkTable.compute(index, 2, ForkJoinPool.commonPool(), new AtomicBoolean());
+        for (LandmarkTable table : new LandmarkTable[] { null, landmarks }) {
+            for (int[] ends : new int[][] { { a.id, b.id }, { b.id, a.id } }) {
+                AStarPathfinder.PathResult result =
+                        AStarPathfinder.findPathBidirectional(index, ends[0], ends[1], forward, backward, table);
+                assertEquals(2, result.path.size());
+                assertSame(index.nodes[ends[0]], result.path.get(0));
+                assertSame(index.nodes[ends[1]], result.path.get(1));
+                assertEquals(1, result.edges.size());
+                assertSame(edge, result.edges.get(0));
+                assertEquals(50.0, result.totalDistance, 1e-12);
+            }
+        }
+    }
+
+    // Same cost as the unidirectional search, and a connected start..goal walk
+    // whose edge lengths add up to it
+    static void assertSameCost(AdjacencyIndex index, int start, int goal,
+                               AStarPathfinder.PathResult expected, AStarPathfinder.PathResult actual,
+                               String query) {
+        assertEquals(expected.path.isEmpty(), actual.path.isEmpty(), query);
+        if (expected.path.isEmpty()) {
+            return;
+        }
+        assertEquals(expected.totalDistance, actual.totalDistance, 1e-9 * Math.max(1, expected.totalDistance), query);
+        assertSame(index.nodes[start], actual.path.get(0), query);
+        assertSame(index.nodes[goal], actual.path.get(actual.path.size() - 1), query);
+        assertEquals(actual.path.size() - 1, actual.edges.size(), query);
+        double total = 0;
+        for (int i = 0; i < actual.edges.size(); i++) {
+            Edge edge = actual.edges.get(i);
+            Node from = actual.path.get(i);
+            Node to = actual.path.get(i + 1);
+            assertTrue(edge.node1 == from && edge.node2 == to || edge.node1 == to && edge.node2 == from, query);
+            total += index.lengths[edge.id];
+        }
+        assertEquals(actual.totalDistance, total, 1e-9 * Math.max(1, total), query);
+    }
+}
@@ -0,0 +1,139 @@
+package javaproject.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javaproject.models.Graph;
+import javaproject.models.Node;
+
+class AutosaveJournalTest {
+    @TempDir
+    File directory;
+
+    private File base() {
+        return new File(directory, "map");
+    }
+
+    @Test
+    void recoveryReplaysEveryEdit() throws IOException {
+        Graph graph = MapGenerator.generate(MapGenerator.ROAD, 500, 4);
+        AutosaveJournal autosave = new AutosaveJournal(graph, base());
+        RandomEdits.edits(graph, RandomEdits.on(graph), new Random(1), 400);
+        autosave.close();
+
+        assertTrue(AutosaveJournal.hasChanges(base()));
+        assertEquals(GraphDump.of(graph), GraphDump.of(AutosaveJournal.recover(base(), MapIO.NO_PROGRESS)));
+    }
+
+    @Test
+    void recoveryFromAnEmptyGraph() throws IOException {
+        Graph graph = new Graph();
+        AutosaveJournal autosave = new AutosaveJournal(graph, base());
+        RandomEdits.edits(graph, RandomEdits.on(graph), new Random(2), 200);
+        graph.clear();
+        RandomEdits.edits(graph, RandomEdits.on(graph), new Random(3), 100);
+        autosave.close();
+
+        assertEquals(GraphDump.of(graph), GraphDump.of(AutosaveJournal.recover(base(), MapIO.NO_PROGRESS)));
+    }
+
+    @Test
+    void tornTailIsDropped() throws IOException {
+        Graph graph = MapGenerator.generate(MapGenerator.GRID, 300, 4);
+        AutosaveJournal autosave = new AutosaveJournal(graph, base());
+        RandomEdits.edits(graph, RandomEdits.on(graph), new Random(5), 100);
+        String beforeLast = GraphDump.of(graph);
+        graph.addNode(new Node(1, 2, "last", false));
+        autosave.close();
+
+        // Cut the last record short, as a crash in the middle of its write would
+        File journal = newest(".journal");
+        try (RandomAccessFile file = new RandomAccessFile(journal, "rw")) {
+            file.setLength(file.length() - 3);
+        }
+        assertEquals(beforeLast, GraphDump.of(AutosaveJournal.recover(base(), MapIO.NO_PROGRESS)));
+
+        // A record whose CRC does not match is dropped the same way
+        try (RandomAccessFile file = new RandomAccessFile(journal, "rw")) {
+            file.seek(file.length());
+            file.writeInt(4);
+            file.writeInt(0x12345678);
+            file.writeInt(0);
+        }
+        assertEquals(beforeLast, GraphDump.of(AutosaveJournal.recover(base(), MapIO.NO_PROGRESS)));
+    }
+
+    @Test
+    void compactionKeepsTheSameGraph() throws IOException {
+        Graph graph = MapGenerator.generate(MapGenerator.ROAD, 500, 6);
+        AutosaveJournal autosave = new AutosaveJournal(graph, base());
+        Random random = new Random(7);
+        RandomEdits.edits(graph, RandomEdits.on(graph), random, 200);
+        autosave.compact();
+        RandomEdits.edits(graph, RandomEdits.on(graph), random, 200);
+        autosave.compact();
+        RandomEdits.edits(graph, RandomEdits.on(graph), random, 50);
+        autosave.close();
+
+        assertEquals(GraphDump.of(graph), GraphDump.of(AutosaveJournal.recover(base(), MapIO.NO_PROGRESS)));
+        // Two compactions after generation 1, and the older generations are gone
+        assertEquals("[map.3.journal, map.3.mapbin]", sortedNames());
+    }
+
+    @Test
+    void journalOnAChangedSourceFileIsNotReplayed() throws IOException {
+        Graph graph = MapGenerator.generate(MapGenerator.GEOMETRIC, 300, 8);
+        File source = new File(directory, "source.mapbin");
+        MapIO.save(new MapIO.Snapshot(graph), source, MapIO.NO_PROGRESS);
+        AutosaveJournal autosave = new AutosaveJournal(graph, base(), source);
+        RandomEdits.edits(graph, RandomEdits.on(graph), new Random(9), 100);
+        autosave.close();
+        assertEquals("[map.1.journal, source.mapbin]", sortedNames()); // no snapshot, the file is the base
+
+        assertTrue(AutosaveJournal.hasChanges(base()));
+        assertEquals(GraphDump.of(graph), GraphDump.of(AutosaveJournal.recover(base(), MapIO.NO_PROGRESS)));
+
+        assertTrue(source.setLastModified(source.lastModified() - 60_000));
+        assertFalse(AutosaveJournal.hasChanges(base()));
+        assertNull(AutosaveJournal.recover(base(), MapIO.NO_PROGRESS));
+    }
+
+    @Test
+    void deleteRemovesEveryFile() throws IOException {
+        Graph graph = MapGenerator.generate(MapGenerator.GRID, 200, 1);
+        AutosaveJournal autosave = new AutosaveJournal(graph, base());
+        RandomEdits.edits(graph, RandomEdits.on(graph), new Random(1), 20);
+        autosave.close();
+        AutosaveJournal.delete(base());
+
+        assertEquals(0, directory.listFiles().length);
+        assertNull(AutosaveJournal.recover(base(), MapIO.NO_PROGRESS));
+    }
+
+    private String sortedNames() {
+        String[] names = directory.list();
+        Arrays.sort(names);
+        return Arrays.toString(names);
+    }
+
+    private File newest(String suffix) {
+        File newest = null;
+        for (File file : directory.listFiles()) {
+            if (file.getName().endsWith(suffix) && (newest == null || file.getName().compareTo(newest.getName()) > 0)) {
+                newest = file;
+            }
+        }
+        return newest;
+    }
+}
@@ -0,0 +1,28 @@
+package javaproject.utils;
+
+import javaproject.models.Edge;
+import javaproject.models.Graph;
+import javaproject.models.Node;
+
+// Text form of a graph in id order, so two graphs can be compared with assertEquals
+final class GraphDump {
+    private GraphDump() {
+    }
+
+    static String of(Graph graph) {
+        StringBuilder text = new StringBuilder();
+        for (Node node : graph.getNodes()) {
+            text.append("node ").append(node.id).append(' ').append(node.x).append(',').append(node.y)
+                    .append(' ').append(node.label).append(node.isSpecial ? " special" : "").append('\n');
+        }
+        for (Edge edge : graph.getEdges()) {
+            text.append("edge ").append(edge.id).append(' ').append(edge.node1.id).append('-').append(edge.node2.id)
+                    .append(edge.curved ? " curved" : "");
+            if (edge.controlPoint != null) {
+                text.append(" control ").append(edge.controlPoint.x).append(',').append(edge.controlPoint.y);
+            }
+            text.append('\n');
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,46 @@
+package javaproject.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import javaproject.models.Edge;
+import javaproject.models.Graph;
+import javaproject.models.Node;
+
+class MapGeneratorTest {
+    @Test
+    void sameSeedGivesTheSameMap() {
+        for (String layout : MapGenerator.LAYOUTS) {
+            Graph first = MapGenerator.generate(layout, 3000, 7);
+            Graph second = MapGenerator.generate(layout, 3000, 7);
+            assertEquals(GraphDump.of(first), GraphDump.of(second), layout);
+        }
+    }
+
+    @Test
+    void differentSeedsGiveDifferentMaps() {
+        for (String layout : MapGenerator.LAYOUTS) {
+            assertNotEquals(GraphDump.of(MapGenerator.generate(layout, 3000, 7)),
+                    GraphDump.of(MapGenerator.generate(layout, 3000, 8)), layout);
+        }
+    }
+
+    @Test
+    void mapsHaveTheRequestedSizeAndValidEdges() {
+        for (String layout : MapGenerator.LAYOUTS) {
+            Graph graph = MapGenerator.generate(layout, 5000, MapGenerator.DEFAULT_SEED);
+            assertEquals(5000, graph.nodeCount(), layout);
+            assertTrue(graph.edgeCount() > 0, layout);
+            for (Edge edge : graph.getEdges()) {
+                assertTrue(graph.contains(edge.node1) && graph.contains(edge.node2), layout);
+                assertEquals(edge.curved, edge.controlPoint != null, layout);
+            }
+            for (Node node : graph.getNodes()) {
+                assertTrue(node.label != null && !node.label.isEmpty(), layout);
+            }
+        }
+    }
+}
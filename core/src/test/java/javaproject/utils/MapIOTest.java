@@ -0,0 +1,62 @@
+package javaproject.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javaproject.models.Edge;
+import javaproject.models.Graph;
+
+class MapIOTest {
+    @TempDir
+    File directory;
+
+    private static void assertSameLengths(Graph expected, Graph actual) {
+        List<Edge> edges = expected.getEdges();
+        for (int i = 0; i < edges.size(); i++) {
+            assertEquals(edges.get(i).getRawLength(), actual.getEdges().get(i).getRawLength(), 0, "edge " + i);
+        }
+    }
+
+    @Test
+    void bothFormatsRoundTrip() throws IOException {
+        Graph graph = MapGenerator.generate(MapGenerator.ROAD, 3000, 2);
+        for (String name : new String[] { "map.json", "map.mapbin" }) {
+            File file = new File(directory, name);
+            MapIO.save(new MapIO.Snapshot(graph), file, MapIO.NO_PROGRESS);
+            Graph loaded = MapIO.load(file, MapIO.NO_PROGRESS);
+            assertEquals(GraphDump.of(graph), GraphDump.of(loaded), name);
+            assertSameLengths(graph, loaded);
+        }
+    }
+
+    @Test
+    void binaryHoldsRecordsStringsAndLengthsOnly() throws IOException {
+        Graph graph = MapGenerator.generate(MapGenerator.GRID, 1000, 3);
+        File file = new File(directory, "map.mapbin");
+        MapIO.save(new MapIO.Snapshot(graph), file, MapIO.NO_PROGRESS);
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            in.seek(48);
+            long stringsLength = Long.reverseBytes(in.readLong());
+            long strings = 64 + 24L * graph.nodeCount() + 32L * graph.edgeCount() + stringsLength;
+            assertEquals((strings + 7) / 8 * 8 + 8L * graph.edgeCount(), file.length());
+        }
+    }
+
+    @Test
+    void truncatedBinaryIsRejected() throws IOException {
+        File file = new File(directory, "map.mapbin");
+        MapIO.save(new MapIO.Snapshot(MapGenerator.generate(MapGenerator.GRID, 500, 1)), file, MapIO.NO_PROGRESS);
+        try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+            out.setLength(file.length() / 2);
+        }
+        assertThrows(IOException.class, () -> MapIO.load(file, MapIO.NO_PROGRESS));
+    }
+}
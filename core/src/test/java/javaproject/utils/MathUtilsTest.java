@@ -0,0 +1,128 @@
+package javaproject.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class MathUtilsTest {
+    private static final int REFERENCE_SEGMENTS = 1 << 18;
+    // Random curves need under 100 panels; running to MAX_DEPTH takes about 2^31
+    private static final int MAX_PANELS = 1000;
+
+    // Length of the curve as a polyline through many evenly spaced samples
+    private static double reference(double x0, double y0, double x1, double y1, double x2, double y2) {
+        double length = 0;
+        double lastX = x0, lastY = y0;
+        for (int i = 1; i <= REFERENCE_SEGMENTS; i++) {
+            double t = (double) i / REFERENCE_SEGMENTS;
+            double u = 1 - t;
+            double x = u * u * x0 + 2 * u * t * x1 + t * t * x2;
+            double y = u * u * y0 + 2 * u * t * y1 + t * t * y2;
+            length += Math.hypot(x - lastX, y - lastY);
+            lastX = x;
+            lastY = y;
+        }
+        return length;
+    }
+
+    // The adaptive length, asserting it took a bounded number of panels
+    private static double adaptiveLength(double x0, double y0, double x1, double y1, double x2, double y2,
+                                         String message) {
+        int[] panels = { 0 };
+        double length = MathUtils.quadraticBezierLengthAdaptive(x0, y0, x1, y1, x2, y2, 1e-9, panels);
+        assertTrue(panels[0] <= MAX_PANELS, message + ": " + panels[0] + " panels");
+        return length;
+    }
+
+    private static void assertRelative(double expected, double actual, double bound, String message) {
+        assertEquals(expected, actual, bound * Math.max(expected, 1e-12), message);
+    }
+
+    @Test
+    void closedFormMatchesTheReferenceOnRandomCurves() {
+        Random random = new Random(5);
+        for (int i = 0; i < 200; i++) {
+            double[] p = new double[6];
+            for (int k = 0; k < 6; k++) {
+                p[k] = random.nextDouble() * 2000 - 1000;
+            }
+            double expected = reference(p[0], p[1], p[2], p[3], p[4], p[5]);
+            assertRelative(expected, MathUtils.quadraticBezierLength(p[0], p[1], p[2], p[3], p[4], p[5]), 1e-8,
+                    "curve " + i);
+        }
+    }
+
+    @Test
+    void adaptiveMeetsItsToleranceOnRandomCurves() {
+        Random random = new Random(6);
+        for (int i = 0; i < 200; i++) {
+            double[] p = new double[6];
+            for (int k = 0; k < 6; k++) {
+                p[k] = random.nextDouble() * 2000 - 1000;
+            }
+            double expected = reference(p[0], p[1], p[2], p[3], p[4], p[5]);
+            assertRelative(expected,
+                    MathUtils.quadraticBezierLengthAdaptive(p[0], p[1], p[2], p[3], p[4], p[5], 1e-9), 1e-8,
+                    "curve " + i);
+        }
+    }
+
+    @Test
+    void controlPointAtTheMidpointGivesTheChord() {
+        assertEquals(500, MathUtils.quadraticBezierLength(0, 0, 150, 200, 300, 400), 1e-9);
+    }
+
+    @Test
+    void collinearControlPointsFollowTheCusp() {
+        // The curve runs past its end point and turns back: a cusp in the speed
+        double expected = reference(0, 0, 300, 0, 100, 0);
+        assertRelative(expected, MathUtils.quadraticBezierLength(0, 0, 300, 0, 100, 0), 1e-8, "past the end");
+        expected = reference(0, 0, -50, -50, 100, 100);
+        assertRelative(expected, MathUtils.quadraticBezierLength(0, 0, -50, -50, 100, 100), 1e-8, "behind the start");
+    }
+
+    @Test
+    void nearlyStraightCurvesStayAccurate() {
+        double expected = reference(0, 0, 50, 1e-4, 100, 0);
+        assertRelative(expected, MathUtils.quadraticBezierLength(0, 0, 50, 1e-4, 100, 0), 1e-9, "nearly straight");
+    }
+
+    // Regression: with the end point on the start point the chord is zero, and
+    // the adaptive tolerance used to collapse to MIN_NORMAL, so rounding noise
+    // kept the recursion splitting towards MAX_DEPTH (seconds per curve)
+    @Test
+    void selfLoopsStopEarlyWithTheRightLength() {
+        Random random = new Random(1);
+        double[][] loops = new double[20][];
+        for (int i = 0; i < loops.length; i++) {
+            double x = random.nextDouble() * 100, y = random.nextDouble() * 100;
+            loops[i] = new double[] { x, y, random.nextDouble() * 100, random.nextDouble() * 100 };
+        }
+        for (double[] p : loops) {
+            // Out to the midpoint of the control leg and back
+            double expected = Math.hypot(p[2] - p[0], p[3] - p[1]);
+            assertRelative(expected, MathUtils.quadraticBezierLength(p[0], p[1], p[2], p[3], p[0], p[1]),
+                    1e-9, "loop");
+            assertRelative(expected, adaptiveLength(p[0], p[1], p[2], p[3], p[0], p[1], "loop, adaptive"),
+                    1e-9, "loop, adaptive");
+        }
+    }
+
+    @Test
+    void almostClosedCurveStaysAccurate() {
+        double expected = reference(0.3, 0.7, 5.1, 7.3, 0.3 + 1e-9, 0.7);
+        assertRelative(expected, MathUtils.quadraticBezierLength(0.3, 0.7, 5.1, 7.3, 0.3 + 1e-9, 0.7), 1e-8,
+                "almost closed");
+        assertRelative(expected, adaptiveLength(0.3, 0.7, 5.1, 7.3, 0.3 + 1e-9, 0.7, "almost closed, adaptive"),
+                1e-8, "almost closed, adaptive");
+    }
+
+    @Test
+    void degenerateCurveHasZeroLength() {
+        assertEquals(0, MathUtils.quadraticBezierLength(7, 7, 7, 7, 7, 7), 0);
+        assertEquals(0, adaptiveLength(7, 7, 7, 7, 7, 7, "degenerate"), 0);
+    }
+}
@@ -0,0 +1,164 @@
+package javaproject.utils;
+
+import java.util.List;
+import java.util.Random;
+
+import javaproject.models.ControlPoint;
+import javaproject.models.Edge;
+import javaproject.models.Graph;
+import javaproject.models.Node;
+
+// Seeded random edits of every kind the editor makes, applied either straight
+// to the graph or through an UndoJournal
+final class RandomEdits {
+    // The edit operations Graph and UndoJournal both offer
+    interface Editor {
+        void addNode(Node node);
+
+        void removeNode(Node node);
+
+        void addEdge(Edge edge);
+
+        void removeEdge(Edge edge);
+
+        void moveNode(Node node, double x, double y);
+
+        void moveControlPoint(Edge edge, double x, double y);
+
+        void renameNode(Node node, String label, boolean isSpecial);
+    }
+
+    private RandomEdits() {
+    }
+
+    static Editor on(Graph graph) {
+        return new Editor() {
+            @Override
+            public void addNode(Node node) {
+                graph.addNode(node);
+            }
+
+            @Override
+            public void removeNode(Node node) {
+                graph.removeNode(node);
+            }
+
+            @Override
+            public void addEdge(Edge edge) {
+                graph.addEdge(edge);
+            }
+
+            @Override
+            public void removeEdge(Edge edge) {
+                graph.removeEdge(edge);
+            }
+
+            @Override
+            public void moveNode(Node node, double x, double y) {
+                graph.moveNode(node, x, y);
+            }
+
+            @Override
+            public void moveControlPoint(Edge edge, double x, double y) {
+                graph.moveControlPoint(edge, x, y);
+            }
+
+            @Override
+            public void renameNode(Node node, String label, boolean isSpecial) {
+                graph.renameNode(node, label, isSpecial);
+            }
+        };
+    }
+
+    static Editor on(UndoJournal journal) {
+        return new Editor() {
+            @Override
+            public void addNode(Node node) {
+                journal.addNode(node);
+            }
+
+            @Override
+            public void removeNode(Node node) {
+                journal.removeNode(node);
+            }
+
+            @Override
+            public void addEdge(Edge edge) {
+                journal.addEdge(edge);
+            }
+
+            @Override
+            public void removeEdge(Edge edge) {
+                journal.removeEdge(edge);
+            }
+
+            @Override
+            public void moveNode(Node node, double x, double y) {
+                journal.moveNode(node, x, y);
+            }
+
+            @Override
+            public void moveControlPoint(Edge edge, double x, double y) {
+                journal.moveControlPoint(edge, x, y);
+            }
+
+            @Override
+            public void renameNode(Node node, String label, boolean isSpecial) {
+                journal.renameNode(node, label, isSpecial);
+            }
+        };
+    }
+
+    static void edits(Graph graph, Editor editor, Random random, int count) {
+        for (int step = 0; step < count; step++) {
+            edit(graph, editor, random, step);
+        }
+    }
+
+    // One edit; graph is what editor changes, read to pick the targets.
+    // New and renamed nodes get labels ending in step.
+    static void edit(Graph graph, Editor editor, Random random, int step) {
+        List<Node> nodes = graph.getNodes();
+        List<Edge> edges = graph.getEdges();
+        switch (nodes.size() < 3 ? 0 : random.nextInt(7)) {
+            case 0:
+                editor.addNode(new Node(random.nextDouble() * 1000, random.nextDouble() * 1000, "new" + step,
+                        random.nextBoolean()));
+                break;
+            case 1:
+                editor.removeNode(nodes.get(random.nextInt(nodes.size())));
+                break;
+            case 2:
+                Node a = nodes.get(random.nextInt(nodes.size()));
+                Node b = nodes.get(random.nextInt(nodes.size()));
+                if (a != b) {
+                    boolean curved = random.nextBoolean();
+                    editor.addEdge(new Edge(a, b, curved,
+                            curved ? new ControlPoint((a.x + b.x) / 2 + 20, (a.y + b.y) / 2) : null));
+                }
+                break;
+            case 3:
+                if (!edges.isEmpty()) {
+                    editor.removeEdge(edges.get(random.nextInt(edges.size())));
+                }
+                break;
+            case 4:
+                Node moved = nodes.get(random.nextInt(nodes.size()));
+                editor.moveNode(moved, moved.x + random.nextGaussian() * 10, moved.y + random.nextGaussian() * 10);
+                break;
+            case 5:
+                for (int tries = 0; tries < 10 && !edges.isEmpty(); tries++) {
+                    Edge edge = edges.get(random.nextInt(edges.size()));
+                    if (edge.controlPoint != null) {
+                        editor.moveControlPoint(edge, edge.controlPoint.x + random.nextGaussian() * 10,
+                                edge.controlPoint.y + random.nextGaussian() * 10);
+                        break;
+                    }
+                }
+                break;
+            default:
+                Node renamed = nodes.get(random.nextInt(nodes.size()));
+                editor.renameNode(renamed, "renamed" + step, !renamed.isSpecial);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package javaproject.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import javaproject.models.Edge;
+import javaproject.models.Graph;
+import javaproject.models.Node;
+
+class SpatialIndexTest {
+    private static Node closestNode(Graph graph, double x, double y, double radius) {
+        Node closest = null;
+        double best = radius * radius;
+        for (Node node : graph.getNodes()) {
+            double d = (x - node.x) * (x - node.x) + (y - node.y) * (y - node.y);
+            if (d < best || d == best && closest == null) {
+                best = d;
+                closest = node;
+            }
+        }
+        return closest;
+    }
+
+    @Test
+    void queriesMatchBruteForceUnderChurn() {
+        Graph graph = MapGenerator.generate(MapGenerator.GEOMETRIC, 4000, 3);
+        Random random = new Random(4);
+        for (int round = 0; round < 2000; round++) {
+            // Moves, removals and additions reshuffle the cells and their probe runs
+            List<Node> nodes = graph.getNodes();
+            switch (random.nextInt(3)) {
+                case 0:
+                    graph.moveNode(nodes.get(random.nextInt(nodes.size())),
+                            random.nextDouble() * 4000, random.nextDouble() * 4000);
+                    break;
+                case 1:
+                    graph.removeNode(nodes.get(random.nextInt(nodes.size())));
+                    break;
+                default:
+                    graph.addNode(new Node(random.nextDouble() * 4000, random.nextDouble() * 4000, "n", false));
+            }
+        }
+
+        for (int i = 0; i < 500; i++) {
+            double x = random.nextDouble() * 4000, y = random.nextDouble() * 4000;
+            Node expected = closestNode(graph, x, y, 40);
+            Node found = graph.nodeAt(x, y, 40);
+            if (expected == null) {
+                assertSame(null, found);
+            } else {
+                double dx = found.x - x, dy = found.y - y;
+                assertEquals((expected.x - x) * (expected.x - x) + (expected.y - y) * (expected.y - y),
+                        dx * dx + dy * dy, 1e-9);
+            }
+        }
+
+        List<Node> visible = new ArrayList<>();
+        List<Edge> visibleEdges = new ArrayList<>();
+        for (double size : new double[] { 300, 1e6 }) {
+            visible.clear();
+            visibleEdges.clear();
+            graph.nodesIn(1000, 1000, 1000 + size, 1000 + size, visible);
+            graph.edgesIn(1000, 1000, 1000 + size, 1000 + size, visibleEdges);
+            // Whole cells are reported, so every node inside must be there, and only once
+            HashSet<Node> reported = new HashSet<>(visible);
+            assertEquals(visible.size(), reported.size(), "each node once");
+            for (Node node : graph.getNodes()) {
+                if (node.x >= 1000 && node.x <= 1000 + size && node.y >= 1000 && node.y <= 1000 + size) {
+                    assertTrue(reported.contains(node), "node inside " + size);
+                }
+            }
+            assertEquals(visibleEdges.size(), new HashSet<>(visibleEdges).size(), "each edge once");
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package javaproject.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+import javaproject.models.AdjacencyIndex;
+
+class SpecialRouteTableTest {
+    private final SearchWorkspace workspace = new SearchWorkspace();
+
+    @Test
+    void pathsMatchAStar() {
+        for (String layout : MapGenerator.LAYOUTS) {
+            AdjacencyIndex index = MapGenerator.generate(layout, 1500, MapGenerator.DEFAULT_SEED).adjacency();
+            int[] specials = randomSpecials(index, new Random(1), 25);
+            assertPathsMatchAStar(index, compute(index, specials, null), specials, layout);
+        }
+    }
+
+    // Each step adds and removes special nodes on the same snapshot, so the
+    // kept rows come from the previous table and only the new ones are searched
+    @Test
+    void reusedRowsMatchAStar() {
+        for (String layout : MapGenerator.LAYOUTS) {
+            AdjacencyIndex index = MapGenerator.generate(layout, 1500, MapGenerator.DEFAULT_SEED).adjacency();
+            Random random = new Random(2);
+            TreeSet<Integer> specials = new TreeSet<>();
+            for (int id : randomSpecials(index, random, 20)) {
+                specials.add(id);
+            }
+            SpecialRouteTable table = compute(index, toArray(specials), null);
+            for (int step = 0; step < 4; step++) {
+                for (int removed = 0; removed < 5; removed++) {
+                    Integer id = specials.ceiling(random.nextInt(index.nodeCount()));
+                    specials.remove(id != null ? id : specials.first());
+                }
+                while (specials.size() < 20 + step * 3) {
+                    specials.add(random.nextInt(index.nodeCount()));
+                }
+                int[] current = toArray(specials);
+                table = compute(index, current, table);
+                assertEquals(current.length, table.size());
+                assertPathsMatchAStar(index, table, current, layout + " step " + step);
+            }
+        }
+    }
+
+    @Test
+    void nonSpecialNodesHaveNoPath() {
+        AdjacencyIndex index = MapGenerator.generate(MapGenerator.GRID, 400, MapGenerator.DEFAULT_SEED).adjacency();
+        SpecialRouteTable table = compute(index, new int[] { 3, 70 }, null);
+        assertNotNull(table.path(index.nodes[3], index.nodes[70]));
+        assertNull(table.path(index.nodes[3], index.nodes[71]));
+        assertNull(table.path(index.nodes[4], index.nodes[70]));
+    }
+
+    private void assertPathsMatchAStar(AdjacencyIndex index, SpecialRouteTable table, int[] specials, String name) {
+        for (int start : specials) {
+            for (int goal : specials) {
+                AStarPathfinder.PathResult expected = AStarPathfinder.findPath(index, start, goal, workspace, null);
+                AStarPathfinderTest.assertSameCost(index, start, goal, expected,
+                        table.path(index.nodes[start], index.nodes[goal]), name + " " + start + " -> " + goal);
+            }
+        }
+    }
+
+    private static SpecialRouteTable compute(AdjacencyIndex index, int[] specials, SpecialRouteTable previous) {
+        return SpecialRouteTable.compute(index, specials, previous, ForkJoinPool.commonPool(), new AtomicBoolean());
+    }
+
+    private static int[] randomSpecials(AdjacencyIndex index, Random random, int count) {
+        return random.ints(0, index.nodeCount()).distinct().limit(count).sorted().toArray();
+    }
+
+    private static int[] toArray(TreeSet<Integer> ids) {
+        return ids.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
@@ -0,0 +1,152 @@
+package javaproject.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import javaproject.models.Edge;
+import javaproject.models.Graph;
+import javaproject.models.Node;
+
+class UndoJournalTest {
+    @Test
+    void undoAndRedoRetraceRandomEdits() {
+        Graph graph = MapGenerator.generate(MapGenerator.ROAD, 300, 5);
+        UndoJournal journal = new UndoJournal(graph);
+        RandomEdits.Editor editor = RandomEdits.on(journal);
+        Random random = new Random(9);
+        String before = state(graph);
+        for (int step = 0; step < 600; step++) {
+            RandomEdits.edit(graph, editor, random, step);
+            if (random.nextInt(3) == 0) {
+                journal.endDrag();
+            }
+        }
+        String after = state(graph);
+
+        // Moves between endDrag() calls coalesce, so the states to compare
+        // against are collected on the way back
+        List<String> undone = new ArrayList<>();
+        undone.add(state(graph));
+        while (journal.canUndo()) {
+            journal.undo();
+            undone.add(state(graph));
+        }
+        assertEquals(before, undone.get(undone.size() - 1));
+        for (int i = undone.size() - 2; i >= 0; i--) {
+            journal.redo();
+            assertEquals(undone.get(i), state(graph), "redo " + (undone.size() - 1 - i));
+        }
+        assertFalse(journal.canRedo());
+        assertEquals(after, state(graph));
+    }
+
+    @Test
+    void dragMovesUndoAsOneChange() {
+        Graph graph = new Graph();
+        UndoJournal journal = new UndoJournal(graph);
+        Node node = new Node(0, 0, "A", false);
+        journal.addNode(node);
+        for (int i = 1; i <= 10; i++) {
+            journal.moveNode(node, i, 2 * i);
+        }
+        journal.endDrag();
+        journal.moveNode(node, 50, 50);
+        journal.endDrag();
+        assertEquals(3, journal.size());
+
+        journal.undo();
+        assertEquals(10, node.x);
+        assertEquals(20, node.y);
+        journal.undo();
+        assertEquals(0, node.x);
+        assertEquals(0, node.y);
+        journal.redo();
+        journal.redo();
+        assertEquals(50, node.x);
+        assertEquals(50, node.y);
+    }
+
+    @Test
+    void newEditDropsTheRedoHistory() {
+        Graph graph = new Graph();
+        UndoJournal journal = new UndoJournal(graph);
+        journal.addNode(new Node(0, 0, "A", false));
+        journal.addNode(new Node(10, 0, "B", false));
+        long twoNodes = journal.estimatedBytes();
+        journal.undo();
+        journal.addNode(new Node(20, 0, "C", false));
+        assertFalse(journal.canRedo());
+        assertNull(journal.redo());
+        assertEquals(2, journal.size());
+        assertEquals(twoNodes, journal.estimatedBytes());
+    }
+
+    @Test
+    void historyStaysUnderTheMemoryCap() {
+        Graph graph = new Graph();
+        long cap = 20_000;
+        UndoJournal journal = new UndoJournal(graph, cap);
+        for (int i = 0; i < 1000; i++) {
+            journal.addNode(new Node(i, 0, "N" + i, false));
+            assertTrue(journal.estimatedBytes() <= cap, "after " + (i + 1) + " nodes");
+        }
+        int kept = journal.size();
+        assertTrue(kept > 0 && kept < 1000);
+
+        // Only the newest changes are kept; the older nodes stay put
+        while (journal.canUndo()) {
+            journal.undo();
+        }
+        assertEquals(1000 - kept, graph.nodeCount());
+        for (Node node : graph.getNodes()) {
+            assertTrue(Integer.parseInt(node.label.substring(1)) < 1000 - kept, node.label);
+        }
+        journal.clear();
+        assertEquals(0, journal.size());
+        assertEquals(0, journal.estimatedBytes());
+    }
+
+    @Test
+    void oneChangeOverTheCapIsStillKept() {
+        Graph graph = new Graph();
+        UndoJournal journal = new UndoJournal(graph, 1);
+        journal.addNode(new Node(0, 0, "A", false));
+        journal.addNode(new Node(10, 0, "B", false));
+        assertEquals(1, journal.size());
+        journal.undo();
+        assertEquals(1, graph.nodeCount());
+        assertEquals("A", graph.getNodes().get(0).label);
+    }
+
+    // Undo can put a node or edge back under a different id than it had,
+    // so the graph is compared as a sorted list of what it holds, with
+    // edges named by their endpoints' labels
+    private static String state(Graph graph) {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < graph.getNodes().size(); i++) {
+            Node node = graph.getNodes().get(i);
+            assertEquals(i, node.id);
+            lines.add("node " + node.label + " " + node.x + "," + node.y + (node.isSpecial ? " special" : ""));
+        }
+        for (int i = 0; i < graph.getEdges().size(); i++) {
+            Edge edge = graph.getEdges().get(i);
+            assertEquals(i, edge.id);
+            assertTrue(graph.contains(edge.node1) && graph.contains(edge.node2));
+            lines.add("edge " + edge.node1.label + " " + edge.node1.x + "," + edge.node1.y
+                    + " - " + edge.node2.label + " " + edge.node2.x + "," + edge.node2.y
+                    + (edge.curved ? " curved" : "")
+                    + (edge.controlPoint != null ? " control " + edge.controlPoint.x + "," + edge.controlPoint.y : ""));
+        }
+        Collections.sort(lines);
+        return String.join("\n", lines);
+    }
+}